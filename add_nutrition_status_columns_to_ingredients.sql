@@ -0,0 +1,12 @@
+-- เพิ่มคอลัมน์สถานะงานดึงข้อมูลโภชนาการแบบ background ให้ตาราง ingredients
+-- งานที่ค้างอยู่ (PENDING / IN_PROGRESS) จะถูกนำกลับเข้าคิวเมื่อ server start ใหม่
+
+ALTER TABLE ingredients
+    ADD COLUMN nutrition_status VARCHAR(20) NULL DEFAULT 'NONE',
+    ADD COLUMN nutrition_error VARCHAR(500) NULL,
+    ADD COLUMN nutrition_updated_at DATETIME NULL;
+
+-- วัตถุดิบที่มีข้อมูลโภชนาการอยู่แล้วถือว่าดึงข้อมูลสำเร็จ
+UPDATE ingredients SET nutrition_status = 'DONE' WHERE calorie IS NOT NULL;
+
+CREATE INDEX idx_ingredients_nutrition_status ON ingredients (nutrition_status);
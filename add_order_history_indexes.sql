@@ -0,0 +1,6 @@
+-- เพิ่ม index สำหรับประวัติ order แบบแบ่งหน้า (user ที่ login และ guest ตามเบอร์โทร)
+-- phase 1 เลือก id จาก index ได้ทันทีโดยไม่ต้อง scan order ทั้งหมดของลูกค้า
+
+CREATE INDEX idx_orders_user_created_at_id ON orders (user_id, created_at, id);
+
+CREATE INDEX idx_orders_phone_created_at_id ON orders (phone_number, created_at, id);
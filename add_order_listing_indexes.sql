@@ -0,0 +1,6 @@
+-- เพิ่ม index สำหรับ keyset pagination ของรายการ orders
+-- เรียงจาก created_at DESC, id DESC และกรองตาม status ได้โดยไม่ต้อง filesort
+
+CREATE INDEX idx_orders_created_at_id ON orders (created_at, id);
+
+CREATE INDEX idx_orders_status_created_at_id ON orders (status, created_at, id);
@@ -0,0 +1,8 @@
+-- ตารางเก็บชื่อวัตถุดิบที่ OpenAI แปลเป็นภาษาอังกฤษแล้ว (ใช้ก่อนเรียก OpenAI ซ้ำ)
+-- คำแปลหลักอยู่ใน src/main/resources/translations/thai-english.json
+
+CREATE TABLE IF NOT EXISTS learned_translations (
+    source_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    english_name VARCHAR(255) NOT NULL,
+    created_at DATETIME NOT NULL
+);
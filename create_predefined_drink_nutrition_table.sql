@@ -0,0 +1,19 @@
+-- ตารางโภชนาการของเมนู predefined ต่อขนาดแก้ว (คำนวณไว้ล่วงหน้าจากส่วนผสม)
+-- ปริมาณต่อแก้ว: วัตถุดิบแต่ละตัวได้ size_in_ml x (quantity / จำนวนหน่วยรวม) กรัม (ถือว่า 1 ml ≈ 1 g)
+-- เมนูที่มีวัตถุดิบยังไม่มีข้อมูลโภชนาการหลักจะไม่มีแถว (ไม่นับเป็น 0)
+-- ไม่ต้องแก้ไขด้วยมือ: server คำนวณใหม่ตอนเริ่มและทุกครั้งที่เมนู, วัตถุดิบ หรือขนาดแก้วเปลี่ยน
+
+CREATE TABLE IF NOT EXISTS predefined_drink_nutrition (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    drink_id BIGINT NOT NULL,
+    cup_size_id BIGINT NOT NULL,
+    size_in_ml INT NOT NULL,
+    calorie DECIMAL(10, 2) NOT NULL,
+    protein DECIMAL(10, 2) NOT NULL,
+    fiber DECIMAL(10, 2) NOT NULL,
+    vitamins JSON NULL,
+    minerals JSON NULL,
+    updated_at DATETIME NOT NULL,
+    CONSTRAINT uk_predefined_drink_nutrition UNIQUE (drink_id, cup_size_id),
+    CONSTRAINT fk_predefined_drink_nutrition_drink FOREIGN KEY (drink_id) REFERENCES predefined_drinks (id)
+);
@@ -0,0 +1,9 @@
+-- ตาราง cache ผลวิเคราะห์รสชาติ smoothy จาก OpenAI (ใช้เมื่อ smoothy.analysis.cache.persist=true)
+-- analysis_key = SHA-256 ของวัตถุดิบที่เรียงตาม id + ปริมาณที่ปัดตาม gram step + ข้อมูลโภชนาการ/รสชาติของวัตถุดิบ
+
+CREATE TABLE IF NOT EXISTS smoothy_analysis_cache (
+    analysis_key VARCHAR(64) NOT NULL PRIMARY KEY,
+    canonical_key TEXT NOT NULL,
+    result TEXT NOT NULL,
+    created_at DATETIME NOT NULL
+);
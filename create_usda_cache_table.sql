@@ -0,0 +1,11 @@
+-- ตาราง cache ของ response จาก USDA FoodData Central (JSON ที่ถูก gzip)
+-- key: search:<ชื่อภาษาอังกฤษ> หรือ food:<fdcId> - ชื่อไทยและอังกฤษที่แปลแล้วตรงกันจะใช้ entry เดียวกัน
+
+CREATE TABLE IF NOT EXISTS usda_cache (
+    cache_key VARCHAR(255) NOT NULL PRIMARY KEY,
+    payload LONGBLOB NOT NULL,
+    fetched_at DATETIME NOT NULL,
+    expires_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_usda_cache_expires_at ON usda_cache (expires_at);
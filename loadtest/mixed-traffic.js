@@ -0,0 +1,89 @@
+// k6 load test: mixed catalog / cart / smoothy calculator traffic
+//
+// Compare p99 latency of the default (platform threads) build against the virtual-thread mode:
+//   1. mvn package && java -jar target/mr-smoothy-0.0.1-SNAPSHOT.jar
+//      k6 run --summary-export=platform.json loadtest/mixed-traffic.js
+//   2. mvn -Pjava21 package && SPRING_PROFILES_ACTIVE=virtual-threads java -jar target/mr-smoothy-0.0.1-SNAPSHOT.jar
+//      k6 run --summary-export=virtual.json loadtest/mixed-traffic.js
+//   3. compare the p(99) values per endpoint tag in the two summaries
+//
+// Environment:
+//   BASE_URL        default http://localhost:8080
+//   TOKEN           JWT of a normal user (required for the cart scenario; cart is skipped without it)
+//   CUP_SIZE_ID     cup size used for cart items (default 1)
+//   INGREDIENT_IDS  comma-separated ingredient ids for cart/calc (default 1,2,3)
+//   RATE            catalog requests per second (default 200); cart and calc run at RATE/4 and RATE/10
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TOKEN = __ENV.TOKEN || '';
+const CUP_SIZE_ID = Number(__ENV.CUP_SIZE_ID || 1);
+const INGREDIENT_IDS = (__ENV.INGREDIENT_IDS || '1,2,3').split(',').map(Number);
+const RATE = Number(__ENV.RATE || 200);
+
+function arrival(rate, exec) {
+    return {
+        executor: 'constant-arrival-rate',
+        rate: Math.max(1, rate),
+        timeUnit: '1s',
+        duration: '2m',
+        preAllocatedVUs: Math.max(10, rate),
+        maxVUs: Math.max(50, rate * 4),
+        exec,
+    };
+}
+
+const scenarios = {
+    catalog: arrival(RATE, 'catalog'),
+    calc: arrival(Math.round(RATE / 10), 'calc'),
+};
+if (TOKEN) {
+    scenarios.cart = arrival(Math.round(RATE / 4), 'cart');
+}
+
+export const options = {
+    scenarios,
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_duration{endpoint:catalog}': ['p(99)<500'],
+        'http_req_duration{endpoint:cart}': ['p(99)<1000'],
+        'http_req_duration{endpoint:calc}': ['p(99)<10000'],
+        'http_req_failed': ['rate<0.01'],
+    },
+};
+
+const CATALOG_PATHS = ['/api/public/fruits', '/api/public/drinks', '/api/public/drinks/popular', '/api/public/cup-sizes'];
+
+export function catalog() {
+    const path = CATALOG_PATHS[Math.floor(Math.random() * CATALOG_PATHS.length)];
+    const res = http.get(`${BASE_URL}${path}`, { tags: { endpoint: 'catalog' } });
+    check(res, { 'catalog 200': (r) => r.status === 200 });
+}
+
+export function cart() {
+    const headers = { 'Content-Type': 'application/json', Authorization: `Bearer ${TOKEN}` };
+    const body = JSON.stringify({
+        type: 'CUSTOM',
+        cupSizeId: CUP_SIZE_ID,
+        quantity: 1,
+        ingredients: INGREDIENT_IDS.slice(0, 2).map((id) => ({ fruitId: id, quantity: 1 })),
+    });
+    const add = http.post(`${BASE_URL}/api/cart/items`, body, { headers, tags: { endpoint: 'cart' } });
+    check(add, { 'cart add 200': (r) => r.status === 200 });
+    const get = http.get(`${BASE_URL}/api/cart`, { headers, tags: { endpoint: 'cart' } });
+    check(get, { 'cart get 200': (r) => r.status === 200 });
+}
+
+export function calc() {
+    // vary amounts so part of the traffic misses the analysis cache
+    const body = JSON.stringify({
+        ingredients: INGREDIENT_IDS.map((id) => ({ ingredientId: id, amount: 50 + Math.floor(Math.random() * 20) * 10 })),
+    });
+    const res = http.post(`${BASE_URL}/api/smoothy/calc`, body, {
+        headers: { 'Content-Type': 'application/json' },
+        tags: { endpoint: 'calc' },
+    });
+    check(res, { 'calc 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,124 @@
+package project.mr_smoothy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * จำกัดจำนวน connection ที่ยืมพร้อมกันด้วย semaphore ก่อนถึง Hikari
+ * เมื่อรันบน virtual threads จำนวน request พร้อมกันไม่ถูกจำกัดด้วย Tomcat thread pool อีกต่อไป
+ * thread ส่วนเกินจะรอที่ semaphore (fair, ไม่ pin carrier thread) แทนการแย่งกันใน pool
+ * และล้มเร็วหลัง acquire-timeout-ms แทนการรอ connection-timeout ของ Hikari (120 วินาที)
+ * เปิดใช้ใน profile virtual-threads (datasource.concurrency-guard.enabled=true)
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.concurrency-guard.enabled", havingValue = "true")
+@Slf4j
+public class DataSourceConcurrencyGuard implements BeanPostProcessor {
+
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+
+    public DataSourceConcurrencyGuard(
+            @Value("${datasource.concurrency-guard.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${datasource.concurrency-guard.acquire-timeout-ms:5000}") long acquireTimeoutMillis) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof GuardedDataSource)) {
+            log.info("Limiting DataSource '{}' to {} concurrent connections", beanName, maxConcurrent);
+            return new GuardedDataSource(dataSource, maxConcurrent, acquireTimeoutMillis);
+        }
+        return bean;
+    }
+
+    static final class GuardedDataSource extends DelegatingDataSource {
+
+        private final Semaphore permits;
+        private final long acquireTimeoutMillis;
+
+        GuardedDataSource(DataSource target, int maxConcurrent, long acquireTimeoutMillis) {
+            super(target);
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return guard(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return guard(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "Database busy: no connection available within " + acquireTimeoutMillis + "ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+            }
+        }
+
+        /**
+         * คืน permit ครั้งเดียวเมื่อ connection ถูก close (คืนเข้า Hikari)
+         */
+        private Connection guard(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                if (released.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                            }
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package project.mr_smoothy.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import project.mr_smoothy.service.UpstreamMetrics;
+import project.mr_smoothy.util.UpstreamGuard;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One long-lived WebClient per upstream (USDA, OpenAI).
+ * Each has its own keep-alive connection pool: max-connections caps the calls in flight,
+ * pending-acquire-max caps the callers waiting for a connection (beyond that calls fail fast),
+ * so a slow upstream cannot take more than its own pool.
+ * Blocking callers go through the upstream's {@link UpstreamGuard} (circuit breaker + bulkhead),
+ * which bounds the request threads a slow or failing upstream can hold.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    public static final String USDA = "usda";
+    public static final String OPENAI = "openai";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider usdaConnectionProvider(
+            UpstreamMetrics upstreamMetrics,
+            @Value("${http.client.usda.max-connections:20}") int maxConnections,
+            @Value("${http.client.usda.pending-acquire-max:200}") int pendingAcquireMax,
+            @Value("${http.client.max-idle-seconds:30}") long maxIdleSeconds) {
+        upstreamMetrics.registerPool(USDA, maxConnections);
+        return connectionProvider(USDA, maxConnections, pendingAcquireMax, maxIdleSeconds);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider openAiConnectionProvider(
+            UpstreamMetrics upstreamMetrics,
+            @Value("${http.client.openai.max-connections:16}") int maxConnections,
+            @Value("${http.client.openai.pending-acquire-max:100}") int pendingAcquireMax,
+            @Value("${http.client.max-idle-seconds:30}") long maxIdleSeconds) {
+        upstreamMetrics.registerPool(OPENAI, maxConnections);
+        return connectionProvider(OPENAI, maxConnections, pendingAcquireMax, maxIdleSeconds);
+    }
+
+    @Bean
+    public WebClient usdaWebClient(
+            @Qualifier("usdaConnectionProvider") ConnectionProvider connectionProvider,
+            UpstreamMetrics upstreamMetrics,
+            @Value("${usda.api.base-url:https://api.nal.usda.gov/fdc/v1}") String baseUrl,
+            @Value("${http.client.usda.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${http.client.usda.response-timeout-ms:30000}") long responseTimeoutMs) {
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(connector(connectionProvider, connectTimeoutMs, responseTimeoutMs))
+                .filter(upstreamMetrics.filter(USDA))
+                .build();
+    }
+
+    @Bean
+    public WebClient openAiWebClient(
+            @Qualifier("openAiConnectionProvider") ConnectionProvider connectionProvider,
+            UpstreamMetrics upstreamMetrics,
+            @Value("${openai.api.base-url:https://api.openai.com/v1}") String baseUrl,
+            @Value("${openai.api.key}") String apiKey,
+            @Value("${http.client.openai.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${http.client.openai.response-timeout-ms:60000}") long responseTimeoutMs) {
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .clientConnector(connector(connectionProvider, connectTimeoutMs, responseTimeoutMs))
+                .filter(upstreamMetrics.filter(OPENAI))
+                .build();
+    }
+
+    @Bean
+    public UpstreamGuard usdaGuard(
+            UpstreamMetrics upstreamMetrics,
+            @Value("${http.client.usda.bulkhead.max-concurrent:20}") int maxConcurrent,
+            @Value("${http.client.usda.bulkhead.max-wait-ms:500}") long maxWaitMs,
+            @Value("${http.client.usda.breaker.window-size:20}") int windowSize,
+            @Value("${http.client.usda.breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${http.client.usda.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${http.client.usda.breaker.open-seconds:30}") long openSeconds,
+            @Value("${http.client.usda.breaker.half-open-probes:3}") int halfOpenProbes) {
+        UpstreamGuard guard = new UpstreamGuard(USDA, maxConcurrent, maxWaitMs, windowSize, minimumCalls,
+                failureRateThreshold, openSeconds * 1000, halfOpenProbes, HttpClientConfig::isUpstreamFailure);
+        upstreamMetrics.registerGuard(guard);
+        return guard;
+    }
+
+    @Bean
+    public UpstreamGuard openAiGuard(
+            UpstreamMetrics upstreamMetrics,
+            @Value("${http.client.openai.bulkhead.max-concurrent:16}") int maxConcurrent,
+            @Value("${http.client.openai.bulkhead.max-wait-ms:500}") long maxWaitMs,
+            @Value("${http.client.openai.breaker.window-size:20}") int windowSize,
+            @Value("${http.client.openai.breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${http.client.openai.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${http.client.openai.breaker.open-seconds:30}") long openSeconds,
+            @Value("${http.client.openai.breaker.half-open-probes:3}") int halfOpenProbes) {
+        UpstreamGuard guard = new UpstreamGuard(OPENAI, maxConcurrent, maxWaitMs, windowSize, minimumCalls,
+                failureRateThreshold, openSeconds * 1000, halfOpenProbes, HttpClientConfig::isUpstreamFailure);
+        upstreamMetrics.registerGuard(guard);
+        return guard;
+    }
+
+    /**
+     * Whether an exception means the upstream itself is unhealthy: connection/read failures,
+     * timeouts, 5xx, 408 and 429. Other 4xx responses (bad key, unknown id) do not trip the breaker.
+     */
+    public static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof WebClientResponseException response) {
+                int status = response.getStatusCode().value();
+                return response.getStatusCode().is5xxServerError() || status == 408 || status == 429;
+            }
+            if (e instanceof WebClientRequestException || e instanceof TimeoutException) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static ConnectionProvider connectionProvider(String name, int maxConnections,
+                                                         int pendingAcquireMax, long maxIdleSeconds) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofSeconds(10))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleSeconds))
+                .build();
+    }
+
+    private static ReactorClientHttpConnector connector(ConnectionProvider connectionProvider,
+                                                        int connectTimeoutMs, long responseTimeoutMs) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
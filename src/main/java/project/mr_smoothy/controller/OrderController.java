@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.mr_smoothy.dto.request.OrderCreateRequest;
 import project.mr_smoothy.dto.response.ApiResponse;
+import project.mr_smoothy.dto.response.OrderPageResponse;
 import project.mr_smoothy.dto.response.OrderResponse;
 import project.mr_smoothy.service.OrderService;
 
@@ -32,6 +33,14 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success("OK", orders));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<OrderPageResponse>> getMyOrdersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        OrderPageResponse page = orderService.getMyOrdersPage(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("OK", page));
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrderById(@PathVariable Long orderId) {
         OrderResponse order = orderService.getOrderById(orderId);
@@ -3,13 +3,20 @@ package project.mr_smoothy.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.mr_smoothy.dto.request.SmoothyCalcRequest;
+import project.mr_smoothy.dto.request.SmoothyOptimizeRequest;
 import project.mr_smoothy.dto.response.ApiResponse;
+import project.mr_smoothy.dto.response.SmoothyAnalysisResponse;
 import project.mr_smoothy.dto.response.SmoothyCalcResponse;
+import project.mr_smoothy.dto.response.SmoothyOptimizeResponse;
+import project.mr_smoothy.service.SmoothyOptimizer;
 import project.mr_smoothy.service.SmoothyService;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller for smoothy customization and nutrition calculation
  */
@@ -20,6 +27,7 @@ import project.mr_smoothy.service.SmoothyService;
 public class SmoothyController {
 
     private final SmoothyService smoothyService;
+    private final SmoothyOptimizer smoothyOptimizer;
 
     /**
      * Calculate smoothy nutrition and flavor analysis
@@ -29,17 +37,40 @@ public class SmoothyController {
      * 1. Receive ingredient IDs and amounts
      * 2. Fetch ingredient nutrition data from DB
      * 3. Calculate total nutrition
-     * 4. Send to OpenAI for flavor analysis
-     * 5. Return result
+     * 4. Send to OpenAI for flavor analysis (on a background pool - the servlet thread is released)
+     * 5. Return result; if the analysis takes longer than smoothy.analysis.timeout-ms the response has
+     *    analysisStatus PENDING and the analysis can be polled with GET /api/smoothy/analysis/{analysisKey}
      */
     @PostMapping("/calc")
-    public ResponseEntity<ApiResponse<SmoothyCalcResponse>> calculateSmoothy(
+    public CompletableFuture<ResponseEntity<ApiResponse<SmoothyCalcResponse>>> calculateSmoothy(
             @Valid @RequestBody SmoothyCalcRequest request) {
         log.info("POST /api/smoothy/calc - Calculating smoothy with {} ingredients", 
                 request.getIngredients().size());
         
         try {
-            SmoothyCalcResponse response = smoothyService.calculateSmoothy(request);
+            return smoothyService.calculateSmoothyAsync(request)
+                    .thenApply(response -> ResponseEntity.ok(ApiResponse.success("Smoothy calculated successfully", response)));
+        } catch (Exception e) {
+            log.error("Error calculating smoothy: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to calculate smoothy: " + e.getMessage())));
+        }
+    }
+
+    /**
+     * Calculate smoothy nutrition only and start the flavor analysis in the background
+     * POST /api/smoothy/calc/nutrition
+     * 
+     * Returns immediately; flavor fields are filled only when the analysis is already cached
+     */
+    @PostMapping("/calc/nutrition")
+    public ResponseEntity<ApiResponse<SmoothyCalcResponse>> calculateNutrition(
+            @Valid @RequestBody SmoothyCalcRequest request) {
+        log.info("POST /api/smoothy/calc/nutrition - Calculating smoothy with {} ingredients", 
+                request.getIngredients().size());
+        
+        try {
+            SmoothyCalcResponse response = smoothyService.calculateNutrition(request);
             return ResponseEntity.ok(ApiResponse.success("Smoothy calculated successfully", response));
         } catch (Exception e) {
             log.error("Error calculating smoothy: {}", e.getMessage(), e);
@@ -47,5 +78,40 @@ public class SmoothyController {
                     .body(ApiResponse.error("Failed to calculate smoothy: " + e.getMessage()));
         }
     }
-}
 
+    /**
+     * Find the cheapest ingredient combinations that meet nutrition targets
+     * POST /api/smoothy/optimize
+     * 
+     * Searches active ingredients for the cup size (per-cup targets, must-include / exclude / avoid),
+     * skipping pairs listed in avoid_pairing. Bounded by smoothy.optimizer.time-budget-ms;
+     * complete=false means the budget ran out and cheaper combinations may exist
+     */
+    @PostMapping("/optimize")
+    public CompletableFuture<ResponseEntity<ApiResponse<SmoothyOptimizeResponse>>> optimize(
+            @Valid @RequestBody SmoothyOptimizeRequest request) {
+        log.info("POST /api/smoothy/optimize - cup size {}, must include {}", 
+                request.getCupSizeId(), request.getMustInclude());
+        
+        try {
+            return smoothyOptimizer.optimizeAsync(request)
+                    .thenApply(response -> ResponseEntity.ok(ApiResponse.success("Smoothy optimized successfully", response)));
+        } catch (Exception e) {
+            log.error("Error optimizing smoothy: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to optimize smoothy: " + e.getMessage())));
+        }
+    }
+
+    /**
+     * Poll a flavor analysis
+     * GET /api/smoothy/analysis/{analysisKey}
+     */
+    @GetMapping("/analysis/{analysisKey}")
+    public ResponseEntity<ApiResponse<SmoothyAnalysisResponse>> getAnalysis(@PathVariable String analysisKey) {
+        return smoothyService.getAnalysis(analysisKey)
+                .map(analysis -> ResponseEntity.ok(ApiResponse.success("OK", analysis)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Analysis not found: " + analysisKey)));
+    }
+}
@@ -6,7 +6,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.mr_smoothy.dto.response.ApiResponse;
 import project.mr_smoothy.dto.response.DashboardStatsResponse;
+import project.mr_smoothy.dto.response.UpstreamStatsResponse;
 import project.mr_smoothy.service.AdminDashboardService;
+import project.mr_smoothy.service.UpstreamMetrics;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/dashboard")
@@ -15,6 +19,7 @@ import project.mr_smoothy.service.AdminDashboardService;
 public class AdminDashboardController {
 
     private final AdminDashboardService adminDashboardService;
+    private final UpstreamMetrics upstreamMetrics;
 
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<DashboardStatsResponse>> getDashboardStats() {
@@ -22,5 +27,13 @@ public class AdminDashboardController {
         DashboardStatsResponse stats = adminDashboardService.getDashboardStats();
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
-}
 
+    /**
+     * Call counters and latency of the USDA / OpenAI clients
+     * GET /api/admin/dashboard/upstreams
+     */
+    @GetMapping("/upstreams")
+    public ResponseEntity<ApiResponse<List<UpstreamStatsResponse>>> getUpstreamStats() {
+        return ResponseEntity.ok(ApiResponse.success("OK", upstreamMetrics.snapshot()));
+    }
+}
@@ -3,12 +3,23 @@ package project.mr_smoothy.controller.admin;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.mr_smoothy.dto.request.IngredientAddRequest;
 import project.mr_smoothy.dto.response.ApiResponse;
 import project.mr_smoothy.dto.response.IngredientAddResponse;
+import project.mr_smoothy.dto.response.IngredientImportResponse;
+import project.mr_smoothy.dto.response.IngredientNutritionStatusResponse;
+import project.mr_smoothy.dto.response.NutritionEnrichmentStatusResponse;
+import project.mr_smoothy.dto.response.UsdaCacheStatsResponse;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.service.IngredientImportService;
 import project.mr_smoothy.service.IngredientService;
+import project.mr_smoothy.service.NutritionEnrichmentService;
+import project.mr_smoothy.service.USDAResponseCache;
+
+import java.util.List;
 
 /**
  * Admin Controller for managing ingredients with USDA and OpenAI integration
@@ -20,6 +31,9 @@ import project.mr_smoothy.service.IngredientService;
 public class AdminIngredientController {
 
     private final IngredientService ingredientService;
+    private final NutritionEnrichmentService nutritionEnrichmentService;
+    private final IngredientImportService ingredientImportService;
+    private final USDAResponseCache usdaResponseCache;
 
     /**
      * Add new ingredient with USDA and OpenAI processing
@@ -27,10 +41,9 @@ public class AdminIngredientController {
      * 
      * Flow:
      * 1. Receive ingredient name
-     * 2. Call USDA API to get nutrition data
-     * 3. Send USDA data to OpenAI for processing
-     * 4. Save to database
-     * 5. Return result
+     * 2. Save to database
+     * 3. Queue nutrition enrichment (USDA + OpenAI) in the background
+     * 4. Return result immediately (nutritionStatus = PENDING)
      */
     @PostMapping
     public ResponseEntity<ApiResponse<IngredientAddResponse>> addIngredient(
@@ -40,15 +53,15 @@ public class AdminIngredientController {
         try {
             IngredientAddResponse response = ingredientService.addIngredientWithNutrition(request);
             
-            // Check if nutrition data was fetched
-            boolean hasNutritionData = response.getCalorie() != null && 
-                                      response.getProtein() != null && 
-                                      response.getFiber() != null;
-            
-            String message = hasNutritionData 
-                ? "Ingredient added successfully with nutrition data" 
-                : "Ingredient added successfully. Note: Nutrition data could not be fetched. " +
+            String message;
+            if (response.getNutritionStatus() == Fruit.NutritionStatus.PENDING) {
+                message = "Ingredient added successfully. Nutrition data is being fetched in the background";
+            } else if (Boolean.FALSE.equals(request.getFetchNutrition())) {
+                message = "Ingredient added successfully";
+            } else {
+                message = "Ingredient added successfully. Note: Nutrition data could not be fetched. " +
                   "Please ensure USDA_API_KEY is configured in docker-compose.yaml to fetch nutrition data.";
+            }
             
             return ResponseEntity.ok(ApiResponse.success(message, response));
         } catch (Exception e) {
@@ -66,28 +79,87 @@ public class AdminIngredientController {
     }
 
     /**
-     * Fetch and update nutrition data for existing ingredient
+     * Queue a nutrition data fetch for existing ingredient
      * POST /api/admin/ingredient/{id}/fetch-nutrition
      * 
      * Flow:
      * 1. Find existing ingredient by ID
-     * 2. Call USDA API to get nutrition data
-     * 3. Send USDA data to OpenAI for processing
-     * 4. Update ingredient with nutrition data
-     * 5. Return result
+     * 2. Mark it PENDING and queue it for the background enrichment workers
+     * 3. Return result immediately - poll GET /{id}/nutrition-status for progress
      */
     @PostMapping("/{id}/fetch-nutrition")
     public ResponseEntity<ApiResponse<IngredientAddResponse>> fetchNutrition(@PathVariable Long id) {
-        log.info("POST /api/admin/ingredient/{}/fetch-nutrition - Fetching nutrition data", id);
+        log.info("POST /api/admin/ingredient/{}/fetch-nutrition - Queueing nutrition data fetch", id);
         
         try {
             IngredientAddResponse response = ingredientService.fetchAndUpdateNutrition(id);
-            return ResponseEntity.ok(ApiResponse.success("Nutrition data fetched and updated successfully", response));
+            return ResponseEntity.ok(ApiResponse.success("Nutrition data fetch queued", response));
         } catch (Exception e) {
             log.error("Error fetching nutrition data: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Failed to fetch nutrition data: " + e.getMessage()));
         }
     }
-}
 
+    /**
+     * Bulk import ingredients from a JSON array
+     * POST /api/admin/ingredient/import  (Content-Type: application/json)
+     * 
+     * Body has the same shape as POST /api/admin/ingredient, e.g. simple_fruits_batch.json.
+     * Rows are saved in JDBC batches and their USDA data is fetched by the background enrichment queue;
+     * the response reports the result of every row.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<IngredientImportResponse>> importJson(
+            @RequestBody List<IngredientAddRequest> rows) {
+        log.info("POST /api/admin/ingredient/import - Importing {} ingredients (JSON)", rows != null ? rows.size() : 0);
+        IngredientImportResponse response = ingredientImportService.importIngredients(rows);
+        return ResponseEntity.ok(ApiResponse.success(importMessage(response), response));
+    }
+
+    /**
+     * Bulk import ingredients from CSV
+     * POST /api/admin/ingredient/import  (Content-Type: text/csv)
+     * 
+     * First line is the header: name,description,imageUrl,pricePerUnit,category,active,seasonal,fetchNutrition
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ApiResponse<IngredientImportResponse>> importCsv(@RequestBody String csv) {
+        log.info("POST /api/admin/ingredient/import - Importing ingredients (CSV)");
+        IngredientImportResponse response = ingredientImportService.importCsv(csv);
+        return ResponseEntity.ok(ApiResponse.success(importMessage(response), response));
+    }
+
+    private String importMessage(IngredientImportResponse response) {
+        return String.format("Imported %d of %d ingredients (%d skipped, %d duplicate, %d invalid)",
+                response.getCreated(), response.getTotal(), response.getSkipped(), response.getDuplicate(),
+                response.getInvalid());
+    }
+
+    /**
+     * Nutrition enrichment status of one ingredient
+     * GET /api/admin/ingredient/{id}/nutrition-status
+     */
+    @GetMapping("/{id}/nutrition-status")
+    public ResponseEntity<ApiResponse<IngredientNutritionStatusResponse>> nutritionStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success("OK", nutritionEnrichmentService.getStatus(id)));
+    }
+
+    /**
+     * USDA response cache hit/miss counters
+     * GET /api/admin/ingredient/usda-cache
+     */
+    @GetMapping("/usda-cache")
+    public ResponseEntity<ApiResponse<UsdaCacheStatsResponse>> usdaCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("OK", usdaResponseCache.stats()));
+    }
+
+    /**
+     * Progress of the background nutrition enrichment queue
+     * GET /api/admin/ingredient/nutrition-status
+     */
+    @GetMapping("/nutrition-status")
+    public ResponseEntity<ApiResponse<NutritionEnrichmentStatusResponse>> enrichmentStatus() {
+        return ResponseEntity.ok(ApiResponse.success("OK", nutritionEnrichmentService.getStatus()));
+    }
+}
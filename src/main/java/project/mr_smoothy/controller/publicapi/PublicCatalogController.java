@@ -2,57 +2,69 @@ package project.mr_smoothy.controller.publicapi;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.mr_smoothy.dto.request.GuestOrderCreateRequest;
 import project.mr_smoothy.dto.response.ApiResponse;
-import project.mr_smoothy.dto.response.CupSizeResponse;
-import project.mr_smoothy.dto.response.FruitResponse;
+import project.mr_smoothy.dto.response.OrderPageResponse;
 import project.mr_smoothy.dto.response.OrderResponse;
-import project.mr_smoothy.dto.response.PredefinedDrinkResponse;
-import project.mr_smoothy.service.CupSizeService;
-import project.mr_smoothy.service.FruitService;
+import project.mr_smoothy.service.CatalogCache;
 import project.mr_smoothy.service.OrderService;
-import project.mr_smoothy.service.PredefinedDrinkService;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/public")
 @RequiredArgsConstructor
 public class PublicCatalogController {
 
-    private final FruitService fruitService;
-    private final CupSizeService cupSizeService;
-    private final PredefinedDrinkService predefinedDrinkService;
+    private final CatalogCache catalogCache;
     private final OrderService orderService;
 
+    @Value("${catalog.cache.max-age-seconds:60}")
+    private long catalogMaxAgeSeconds;
+
     @GetMapping("/fruits")
-    public ResponseEntity<ApiResponse<List<FruitResponse>>> listFruits() {
-        return ResponseEntity.ok(ApiResponse.success("OK", fruitService.listActive()));
+    public ResponseEntity<byte[]> listFruits(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        return cached(snapshot, snapshot.fruitsBody(), acceptEncoding);
     }
 
     @GetMapping("/cup-sizes")
-    public ResponseEntity<ApiResponse<List<CupSizeResponse>>> listCupSizes() {
-        return ResponseEntity.ok(ApiResponse.success("OK", cupSizeService.listActive()));
+    public ResponseEntity<byte[]> listCupSizes(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        return cached(snapshot, snapshot.cupSizesBody(), acceptEncoding);
     }
 
     @GetMapping("/drinks")
-    public ResponseEntity<ApiResponse<List<PredefinedDrinkResponse>>> listDrinks(
-            @RequestParam(required = false) String sortBy) {
-        return ResponseEntity.ok(ApiResponse.success("OK", predefinedDrinkService.list(sortBy)));
+    public ResponseEntity<byte[]> listDrinks(
+            @RequestParam(required = false) String sortBy,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        return cached(snapshot, snapshot.drinksBody(sortBy), acceptEncoding);
     }
 
     @GetMapping("/drinks/popular")
-    public ResponseEntity<ApiResponse<List<PredefinedDrinkResponse>>> listPopularDrinks(
-            @RequestParam(required = false) String sortBy) {
-        return ResponseEntity.ok(ApiResponse.success("OK", predefinedDrinkService.listPopular(sortBy)));
+    public ResponseEntity<byte[]> listPopularDrinks(
+            @RequestParam(required = false) String sortBy,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        return cached(snapshot, snapshot.popularDrinksBody(sortBy), acceptEncoding);
     }
 
     @GetMapping("/seasonal-ingredients")
-    public ResponseEntity<ApiResponse<List<FruitResponse>>> listSeasonalIngredients() {
-        return ResponseEntity.ok(ApiResponse.success("OK", fruitService.listSeasonal()));
+    public ResponseEntity<byte[]> listSeasonalIngredients(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        return cached(snapshot, snapshot.seasonalIngredientsBody(), acceptEncoding);
     }
 
     @PostMapping("/guest-orders")
@@ -69,11 +81,56 @@ public class PublicCatalogController {
         return ResponseEntity.ok(ApiResponse.success("OK", orders));
     }
 
+    @GetMapping("/guest-orders/page")
+    public ResponseEntity<ApiResponse<OrderPageResponse>> getGuestOrdersPage(
+            @RequestParam String phoneNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        OrderPageResponse page = orderService.getGuestOrdersPage(phoneNumber, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("OK", page));
+    }
+
     @GetMapping("/guest-orders/{orderId}")
     public ResponseEntity<ApiResponse<OrderResponse>> getGuestOrderById(@PathVariable Long orderId) {
         OrderResponse order = orderService.getGuestOrderById(orderId);
         return ResponseEntity.ok(ApiResponse.success("OK", order));
     }
-}
 
+    /**
+     * เขียน JSON ที่ serialize ไว้แล้วลง response ตรงๆ (ใช้ gzip ถ้า client รองรับ)
+     * ใส่ ETag ตาม version ของ snapshot และ Cache-Control
+     * ถ้า If-None-Match ตรงกัน Spring จะตอบ 304 โดยไม่ส่ง body
+     */
+    private ResponseEntity<byte[]> cached(CatalogCache.Snapshot snapshot, CatalogCache.SerializedBody body,
+                                          String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.maxAge(catalogMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate());
+        if (gzip) {
+            // ETag ต้องต่างกันระหว่าง representation แบบ gzip กับแบบปกติ
+            return response.eTag(snapshot.etag().replaceFirst("\"$", "-gzip\""))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(body.gzip());
+        }
+        return response.eTag(snapshot.etag()).body(body.json());
+    }
 
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.replace(" ", "").toLowerCase().split(";q=");
+            if (parts[0].equals("gzip")) {
+                try {
+                    return parts.length == 1 || Double.parseDouble(parts[1]) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -46,11 +46,9 @@ public class GuestOrderCreateRequest {
 
         private List<GuestOrderItemFruitRequest> fruits; // สำหรับ CUSTOM type
 
-        @NotNull(message = "Unit price is required")
-        private BigDecimal unitPrice;
+        private BigDecimal unitPrice; // optional - ราคาจริงคำนวณที่ server
 
-        @NotNull(message = "Total price is required")
-        private BigDecimal totalPrice;
+        private BigDecimal totalPrice; // optional - ราคาจริงคำนวณที่ server
     }
 
     @Data
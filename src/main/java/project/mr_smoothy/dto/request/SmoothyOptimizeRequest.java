@@ -0,0 +1,41 @@
+package project.mr_smoothy.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for finding ingredient combinations that meet nutrition targets
+ * All targets are per cup and optional; omitted limits fall back to smoothy.optimizer.* settings
+ */
+@Data
+public class SmoothyOptimizeRequest {
+
+    private Long cupSizeId; // null = smallest active cup size
+
+    @PositiveOrZero(message = "minProtein must not be negative")
+    private Double minProtein; // grams
+
+    @PositiveOrZero(message = "minFiber must not be negative")
+    private Double minFiber; // grams
+
+    @PositiveOrZero(message = "minCalorie must not be negative")
+    private Double minCalorie;
+
+    @PositiveOrZero(message = "maxCalorie must not be negative")
+    private Double maxCalorie;
+
+    private List<Long> mustInclude; // ingredient IDs that every combination contains
+
+    private List<Long> exclude; // ingredient IDs that are never used
+
+    private List<String> avoid; // keywords matched against ingredient names, flavors and categories, e.g. "dairy", "citrus"
+
+    @Min(value = 1, message = "maxIngredients must be at least 1")
+    private Integer maxIngredients; // capped by smoothy.optimizer.max-ingredients
+
+    @Min(value = 1, message = "limit must be at least 1")
+    private Integer limit; // number of combinations, capped by smoothy.optimizer.max-results
+}
@@ -23,5 +23,7 @@ public class DashboardStatsResponse {
     private String revenueChangePercent; // e.g., "+10%"
     private String ordersChangePercent;
     private String bestSellChangePercent;
+    private Long ordersThisMonth; // calendar month to date
+    private BigDecimal revenueThisMonth;
 }
 
@@ -32,5 +32,6 @@ public class FruitResponse {
     private String tasteNotes;
     private String bestMixPairing;
     private String avoidPairing;
+    private Fruit.NutritionStatus nutritionStatus;
 }
 
@@ -37,5 +37,8 @@ public class IngredientAddResponse {
     private String tasteNotes;
     private String bestMixPairing; // JSON string
     private String avoidPairing; // JSON string
+
+    // Background nutrition enrichment status
+    private Fruit.NutritionStatus nutritionStatus;
 }
 
@@ -0,0 +1,46 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import project.mr_smoothy.entity.Fruit;
+
+import java.util.List;
+
+/**
+ * Response DTO for bulk ingredient import - one result per input row
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngredientImportResponse {
+
+    public enum RowStatus {
+        CREATED,   // บันทึกแล้ว
+        SKIPPED,   // ชื่อซ้ำกับที่มีอยู่หรือซ้ำในไฟล์
+        DUPLICATE, // ชื่อถูกบันทึกโดย import อื่นระหว่างที่กำลังนำเข้า
+        INVALID    // ข้อมูลไม่ถูกต้อง
+    }
+
+    private int total;
+    private int created;
+    private int skipped;
+    private int duplicate;
+    private int invalid;
+    private List<RowResult> rows;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private int row;          // 1-based position in the input
+        private String name;
+        private RowStatus status;
+        private Long id;
+        private Fruit.NutritionStatus nutritionStatus;
+        private String message;
+    }
+}
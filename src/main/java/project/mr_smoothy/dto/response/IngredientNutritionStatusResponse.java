@@ -0,0 +1,25 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import project.mr_smoothy.entity.Fruit;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for the nutrition enrichment status of one ingredient
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngredientNutritionStatusResponse {
+    private Long id;
+    private String name;
+    private Fruit.NutritionStatus status;
+    private String error;
+    private LocalDateTime updatedAt;
+    private Boolean hasNutritionData;
+}
@@ -0,0 +1,24 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import project.mr_smoothy.entity.Fruit;
+
+import java.util.Map;
+
+/**
+ * Response DTO for the background nutrition enrichment queue
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NutritionEnrichmentStatusResponse {
+    private int queued;        // ids waiting in the in-memory queue
+    private int workers;
+    private int activeWorkers; // workers currently processing a batch
+    private int batchSize;
+    private Map<Fruit.NutritionStatus, Long> counts; // ingredients per nutrition status
+}
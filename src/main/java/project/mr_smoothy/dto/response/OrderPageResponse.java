@@ -0,0 +1,18 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    private List<OrderResponse> items;
+    private String nextCursor; // ส่งกลับมาใน request ถัดไปเพื่อดึงหน้าต่อไป (null ถ้าไม่มีแล้ว)
+    private boolean hasMore;
+}
@@ -6,7 +6,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import project.mr_smoothy.entity.PredefinedDrink;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -22,6 +24,7 @@ public class PredefinedDrinkResponse {
     private Boolean active;
     private Boolean popular;
     private List<IngredientInfo> ingredients;
+    private List<NutritionInfo> nutrition; // ต่อขนาดแก้วที่ active เรียงตาม volumeMl
     
     @Data
     @Builder
@@ -32,5 +35,18 @@ public class PredefinedDrinkResponse {
         private String fruitName;
         private Integer quantity;
     }
-}
 
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NutritionInfo {
+        private Long cupSizeId;
+        private Integer volumeMl;
+        private BigDecimal calorie;
+        private BigDecimal protein;
+        private BigDecimal fiber;
+        private Map<String, BigDecimal> vitamins;   // only nutrients with data, same keys as Fruit.vitamins
+        private Map<String, BigDecimal> minerals;   // only nutrients with data, same keys as Fruit.minerals
+    }
+}
@@ -0,0 +1,23 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for polling a smoothy flavor analysis
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmoothyAnalysisResponse {
+    private String analysisKey;
+    private SmoothyCalcResponse.AnalysisStatus analysisStatus;
+    private String flavorDescription;
+    private List<String> synergy;
+    private List<String> cancellation;
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Response DTO for smoothy calculation result
@@ -16,11 +17,19 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SmoothyCalcResponse {
+
+    public enum AnalysisStatus {
+        READY,     // flavor analysis included (local analyzer, or OpenAI when smoothy.analysis.mode=ai)
+        PENDING,   // OpenAI still running - local analysis included meanwhile, poll GET /api/smoothy/analysis/{analysisKey}
+        FALLBACK   // OpenAI unavailable - local analysis from the ingredient pairing data
+    }
     
     private TotalNutrition totalNutrition;
     private String flavorDescription;
     private List<String> synergy;
     private List<String> cancellation;
+    private AnalysisStatus analysisStatus;
+    private String analysisKey;
     
     @Data
     @Builder
@@ -30,6 +39,8 @@ public class SmoothyCalcResponse {
         private BigDecimal totalCalorie;
         private BigDecimal totalProtein;
         private BigDecimal totalFiber;
+        private Map<String, BigDecimal> vitamins;   // only nutrients with data, same keys as Fruit.vitamins
+        private Map<String, BigDecimal> minerals;   // only nutrients with data, same keys as Fruit.minerals
     }
 }
 
@@ -0,0 +1,50 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Response DTO for the nutrition-goal optimizer
+ * Combinations are ordered by price (cheapest first), then by how well the ingredients pair.
+ * complete is false when the time budget ran out before the search finished - the combinations
+ * found so far all meet the targets but cheaper ones may exist.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmoothyOptimizeResponse {
+    private Long cupSizeId;
+    private Integer volumeMl;
+    private boolean complete;
+    private long exploredCombinations;
+    private long elapsedMs;
+    private List<Combination> combinations;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Combination {
+        private BigDecimal price; // cup size price + ingredient prices, same as the cart
+        private List<Ingredient> ingredients;
+        private SmoothyCalcResponse.TotalNutrition totalNutrition;
+        private List<String> synergy;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Ingredient {
+        private Long ingredientId;
+        private String name;
+        private Integer quantity; // units, as in a custom cart item
+        private BigDecimal amount; // grams in the cup, as accepted by /api/smoothy/calc
+    }
+}
@@ -0,0 +1,36 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for per-upstream HTTP client counters (since startup)
+ * Percentiles are bucket upper bounds, not exact values.
+ * circuitState is CLOSED / OPEN / HALF_OPEN; shortCircuited and bulkheadRejected count calls refused without reaching the upstream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpstreamStatsResponse {
+    private String upstream;
+    private long requests;
+    private long errors;
+    private long timeouts;
+    private int inFlight;
+    private int maxConnections;
+    private double avgLatencyMs;
+    private long maxLatencyMs;
+    private long p50LatencyMs;
+    private long p95LatencyMs;
+    private long p99LatencyMs;
+    private String circuitState;
+    private double failureRate;
+    private int bulkheadAvailable;
+    private int bulkheadMaxConcurrent;
+    private long shortCircuited;
+    private long bulkheadRejected;
+    private long timesOpened;
+}
@@ -0,0 +1,21 @@
+package project.mr_smoothy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for USDA response cache hit/miss counters (since startup)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsdaCacheStatsResponse {
+    private long memoryHits;
+    private long databaseHits;
+    private long misses;
+    private double hitRatio;
+    private int memoryEntries;
+}
@@ -5,7 +5,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,26 +43,6 @@ public class CartItem {
 
     @Column(nullable = false)
     private Integer quantity; // จำนวนแก้วของ item นี้
-
-    public BigDecimal getUnitPrice() {
-        BigDecimal cupPrice = cupSize.getPrice();
-        if (type == ItemType.PREDEFINED) {
-            // คำนวณราคาจากผลรวมของผลไม้ใน predefined drink
-            BigDecimal drinkFruitSum = predefinedDrink.getIngredients().stream()
-                    .map(df -> df.getFruit().getPricePerUnit().multiply(BigDecimal.valueOf(df.getQuantity())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            return drinkFruitSum.add(cupPrice);
-        } else {
-            BigDecimal fruitSum = fruits.stream()
-                    .map(f -> f.getFruit().getPricePerUnit().multiply(BigDecimal.valueOf(f.getQuantity())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            return fruitSum.add(cupPrice);
-        }
-    }
-
-    public BigDecimal getTotalPrice() {
-        return getUnitPrice().multiply(BigDecimal.valueOf(quantity));
-    }
 }
 
 
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "ingredients")
@@ -24,6 +25,15 @@ public class Fruit {
         SWEETENER            // สารให้ความหวาน
     }
 
+    public enum NutritionStatus {
+        NONE,          // ยังไม่ได้ขอดึงข้อมูลโภชนาการ
+        PENDING,       // อยู่ในคิวรอดึงข้อมูล
+        IN_PROGRESS,   // กำลังดึงข้อมูลจาก USDA / OpenAI
+        DONE,          // ดึงข้อมูลสำเร็จ
+        NOT_FOUND,     // ไม่พบข้อมูลใน USDA database
+        FAILED         // ดึงข้อมูลไม่สำเร็จ (ดู nutritionError)
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -82,6 +92,17 @@ public class Fruit {
     // Raw USDA Data (for reference)
     @Column(name = "raw_usda_data", columnDefinition = "LONGTEXT")
     private String rawUsdaData; // Complete USDA API response as JSON string
+
+    // Background nutrition enrichment job (see NutritionEnrichmentService)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "nutrition_status", length = 20)
+    private NutritionStatus nutritionStatus = NutritionStatus.NONE;
+
+    @Column(name = "nutrition_error", length = 500)
+    private String nutritionError;
+
+    @Column(name = "nutrition_updated_at")
+    private LocalDateTime nutritionUpdatedAt;
 }
 
 
@@ -0,0 +1,29 @@
+package project.mr_smoothy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ชื่อวัตถุดิบที่แปลเป็นภาษาอังกฤษด้วย OpenAI แล้ว - ชื่อเดิมจะไม่ถูกส่งไปแปลซ้ำ
+ */
+@Entity
+@Table(name = "learned_translations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LearnedTranslation {
+
+    @Id
+    @Column(name = "source_name", length = 255)
+    private String sourceName; // lower-case, trimmed
+
+    @Column(name = "english_name", nullable = false, length = 255)
+    private String englishName;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
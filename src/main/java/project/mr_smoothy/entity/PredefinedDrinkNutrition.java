@@ -0,0 +1,54 @@
+package project.mr_smoothy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * โภชนาการของเมนู predefined ต่อขนาดแก้ว (คำนวณไว้ล่วงหน้า ไม่ได้แก้ไขโดย admin)
+ * คำนวณใหม่เมื่อเมนู, วัตถุดิบ หรือขนาดแก้วเปลี่ยน - ดู PredefinedDrinkNutritionService
+ */
+@Entity
+@Table(name = "predefined_drink_nutrition",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"drink_id", "cup_size_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredefinedDrinkNutrition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "drink_id")
+    private PredefinedDrink drink;
+
+    @Column(name = "cup_size_id", nullable = false)
+    private Long cupSizeId; // ไม่ผูก foreign key - แถวของขนาดแก้วที่ถูกลบจะถูกลบตอนคำนวณใหม่
+
+    @Column(name = "size_in_ml", nullable = false)
+    private Integer sizeInMl;
+
+    @Column(name = "calorie", precision = 10, scale = 2, nullable = false)
+    private BigDecimal calorie; // ต่อแก้ว
+
+    @Column(name = "protein", precision = 10, scale = 2, nullable = false)
+    private BigDecimal protein; // กรัมต่อแก้ว
+
+    @Column(name = "fiber", precision = 10, scale = 2, nullable = false)
+    private BigDecimal fiber; // กรัมต่อแก้ว
+
+    @Column(name = "vitamins", columnDefinition = "JSON")
+    private String vitamins; // JSON object ต่อแก้ว (key เดียวกับ Fruit.vitamins)
+
+    @Column(name = "minerals", columnDefinition = "JSON")
+    private String minerals; // JSON object ต่อแก้ว (key เดียวกับ Fruit.minerals)
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
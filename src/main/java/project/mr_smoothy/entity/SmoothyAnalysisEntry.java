@@ -0,0 +1,33 @@
+package project.mr_smoothy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ผลวิเคราะห์รสชาติจาก OpenAI ที่ cache ไว้ (เปิดใช้ด้วย smoothy.analysis.cache.persist=true)
+ * analysis_key คือ SHA-256 ของ canonical key (วัตถุดิบเรียงตาม id + ปริมาณที่ปัดตาม gram step)
+ */
+@Entity
+@Table(name = "smoothy_analysis_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmoothyAnalysisEntry {
+
+    @Id
+    @Column(name = "analysis_key", length = 64)
+    private String analysisKey;
+
+    @Column(name = "canonical_key", nullable = false, columnDefinition = "TEXT")
+    private String canonicalKey;
+
+    @Column(name = "result", nullable = false, columnDefinition = "TEXT")
+    private String result; // JSON: flavorDescription, synergy, cancellation
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package project.mr_smoothy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response ดิบจาก USDA FoodData Central ที่ cache ไว้ (gzip JSON)
+ * key: "search:<ชื่อภาษาอังกฤษที่ normalize แล้ว>" หรือ "food:<fdcId>"
+ */
+@Entity
+@Table(name = "usda_cache", indexes = {
+        @Index(name = "idx_usda_cache_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsdaCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 255)
+    private String cacheKey;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] payload; // gzip-compressed JSON
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
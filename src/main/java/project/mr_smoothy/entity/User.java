@@ -4,12 +4,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import project.mr_smoothy.util.UserPrincipalEvictionListener;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserPrincipalEvictionListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
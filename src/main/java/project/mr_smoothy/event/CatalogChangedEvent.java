@@ -0,0 +1,22 @@
+package project.mr_smoothy.event;
+
+/**
+ * Event ที่ publish เมื่อ admin แก้ไขข้อมูลเมนู (วัตถุดิบ, เครื่องดื่ม, ขนาดแก้ว)
+ * listener จะได้รับหลัง transaction commit แล้วเพื่อสร้าง cache / snapshot ใหม่
+ * listener ที่ข้อมูลขึ้นกับ listener อื่นใช้ @Order ตามค่าด้านล่าง (ค่าน้อยทำก่อน)
+ */
+public record CatalogChangedEvent(Type type) {
+
+    /** ตารางที่อ่านจาก entity โดยตรง (เช่น NutrientMatrix) */
+    public static final int ORDER_SOURCE = 0;
+    /** ข้อมูลที่คำนวณต่อจากตารางข้างบน (เช่น โภชนาการของเมนู) */
+    public static final int ORDER_DERIVED = 100;
+    /** snapshot ของ public API ที่ serialize ทุกอย่างข้างบน */
+    public static final int ORDER_SNAPSHOT = 200;
+
+    public enum Type {
+        FRUIT,
+        DRINK,
+        CUP_SIZE
+    }
+}
@@ -6,9 +6,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerInterceptor;
-import project.mr_smoothy.entity.User;
-import project.mr_smoothy.repository.UserRepository;
+import project.mr_smoothy.util.AuthUtil;
 import project.mr_smoothy.util.JwtTokenUtil;
+import project.mr_smoothy.util.UserPrincipal;
+import project.mr_smoothy.util.UserPrincipalCache;
 
 import java.util.Optional;
 
@@ -17,7 +18,7 @@ import java.util.Optional;
 public class AdminAuthInterceptor implements HandlerInterceptor {
 
     private final JwtTokenUtil jwtTokenUtil;
-    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -45,23 +46,24 @@ public class AdminAuthInterceptor implements HandlerInterceptor {
             }
             
             // Check if user exists and has ADMIN role
-            Optional<User> userOptional = userRepository.findByUsername(username);
-            if (userOptional.isEmpty()) {
+            Optional<UserPrincipal> principalOptional = userPrincipalCache.resolve(username);
+            if (principalOptional.isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"success\":false,\"message\":\"User not found.\",\"data\":null}");
                 return false;
             }
             
-            User user = userOptional.get();
-            if (user.getRole() != User.UserRole.ADMIN) {
+            UserPrincipal principal = principalOptional.get();
+            if (!principal.isAdmin()) {
                 response.setStatus(HttpServletResponse.SC_FORBIDDEN);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"success\":false,\"message\":\"Access denied. Admin role required.\",\"data\":null}");
                 return false;
             }
             
-            // User is ADMIN - allow request to proceed
+            // User is ADMIN - keep the resolved principal for this request and allow it to proceed
+            request.setAttribute(AuthUtil.PRINCIPAL_ATTRIBUTE, principal);
             return true;
             
         } catch (Exception e) {
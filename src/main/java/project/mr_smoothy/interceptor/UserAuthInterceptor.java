@@ -6,9 +6,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerInterceptor;
-import project.mr_smoothy.entity.User;
-import project.mr_smoothy.repository.UserRepository;
+import project.mr_smoothy.util.AuthUtil;
 import project.mr_smoothy.util.JwtTokenUtil;
+import project.mr_smoothy.util.UserPrincipal;
+import project.mr_smoothy.util.UserPrincipalCache;
 
 import java.util.Optional;
 
@@ -17,7 +18,7 @@ import java.util.Optional;
 public class UserAuthInterceptor implements HandlerInterceptor {
 
     private final JwtTokenUtil jwtTokenUtil;
-    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -45,15 +46,16 @@ public class UserAuthInterceptor implements HandlerInterceptor {
             }
             
             // Check if user exists
-            Optional<User> userOptional = userRepository.findByUsername(username);
-            if (userOptional.isEmpty()) {
+            Optional<UserPrincipal> principalOptional = userPrincipalCache.resolve(username);
+            if (principalOptional.isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"success\":false,\"message\":\"User not found.\",\"data\":null}");
                 return false;
             }
             
-            // User is authenticated - allow request to proceed
+            // User is authenticated - keep the resolved principal for this request and allow it to proceed
+            request.setAttribute(AuthUtil.PRINCIPAL_ATTRIBUTE, principalOptional.get());
             return true;
             
         } catch (Exception e) {
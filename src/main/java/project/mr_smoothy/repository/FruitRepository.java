@@ -1,8 +1,13 @@
 package project.mr_smoothy.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import project.mr_smoothy.entity.Fruit;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 public interface FruitRepository extends JpaRepository<Fruit, Long> {
@@ -10,6 +15,25 @@ public interface FruitRepository extends JpaRepository<Fruit, Long> {
     Optional<Fruit> findByNameIgnoreCase(String name);
     java.util.List<Fruit> findByActiveTrue();
     java.util.List<Fruit> findByActiveTrueAndSeasonalTrue();
-}
 
+    @Query("SELECT f.name FROM Fruit f")
+    java.util.List<String> findAllNames();
+
+    @Query("SELECT f.id FROM Fruit f WHERE f.nutritionStatus IN :statuses ORDER BY f.id")
+    java.util.List<Long> findIdsByNutritionStatusIn(@Param("statuses") Collection<Fruit.NutritionStatus> statuses);
+
+    @Query("SELECT f.nutritionStatus AS status, COUNT(f) AS total FROM Fruit f GROUP BY f.nutritionStatus")
+    java.util.List<NutritionStatusCount> countByNutritionStatus();
 
+    @Modifying
+    @Query("UPDATE Fruit f SET f.nutritionStatus = :status, f.nutritionError = NULL, f.nutritionUpdatedAt = :now " +
+           "WHERE f.id IN :ids")
+    int updateNutritionStatus(@Param("ids") Collection<Long> ids,
+                              @Param("status") Fruit.NutritionStatus status,
+                              @Param("now") LocalDateTime now);
+
+    interface NutritionStatusCount {
+        Fruit.NutritionStatus getStatus();
+        long getTotal();
+    }
+}
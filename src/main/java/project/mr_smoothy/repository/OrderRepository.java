@@ -1,11 +1,16 @@
 package project.mr_smoothy.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import project.mr_smoothy.entity.Order;
 import project.mr_smoothy.entity.User;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -27,6 +32,51 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "ORDER BY o.createdAt DESC")
     List<Order> findAllWithDetails();
     
+    // keyset pagination สำหรับ admin - phase 1 ดึงเฉพาะ id ตาม (createdAt, id) จากใหม่ไปเก่า
+    @Query("SELECT o.id FROM Order o " +
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) " +
+           "AND (:to IS NULL OR o.createdAt < :to) " +
+           "AND (:cursorCreatedAt IS NULL OR o.createdAt < :cursorCreatedAt " +
+           "     OR (o.createdAt = :cursorCreatedAt AND o.id < :cursorId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsPage(@Param("status") Order.OrderStatus status,
+                           @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to,
+                           @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                           @Param("cursorId") Long cursorId,
+                           Pageable pageable);
+
+    // ประวัติ order ของ user / guest แบบแบ่งหน้า - phase 1 ดึงเฉพาะ id
+    @Query("SELECT o.id FROM Order o " +
+           "WHERE o.user.id = :userId " +
+           "AND (:cursorCreatedAt IS NULL OR o.createdAt < :cursorCreatedAt " +
+           "     OR (o.createdAt = :cursorCreatedAt AND o.id < :cursorId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findMyOrderIdsPage(@Param("userId") Long userId,
+                                  @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                  @Param("cursorId") Long cursorId,
+                                  Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o " +
+           "WHERE o.user IS NULL AND o.phoneNumber = :phoneNumber " +
+           "AND (:cursorCreatedAt IS NULL OR o.createdAt < :cursorCreatedAt " +
+           "     OR (o.createdAt = :cursorCreatedAt AND o.id < :cursorId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findGuestOrderIdsPage(@Param("phoneNumber") String phoneNumber,
+                                     @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                     @Param("cursorId") Long cursorId,
+                                     Pageable pageable);
+
+    // phase 2 - fetch รายละเอียดเฉพาะ id ที่อยู่ในหน้านั้น (ลำดับต้องเรียงใหม่ที่ service)
+    @Query("SELECT DISTINCT o FROM Order o " +
+           "LEFT JOIN FETCH o.user " +
+           "LEFT JOIN FETCH o.items i " +
+           "LEFT JOIN FETCH i.cupSize " +
+           "LEFT JOIN FETCH i.predefinedDrink " +
+           "WHERE o.id IN :ids")
+    List<Order> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT DISTINCT o FROM Order o " +
            "LEFT JOIN FETCH o.user " +
            "LEFT JOIN FETCH o.items i " +
@@ -55,5 +105,62 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserIsNullAndPhoneNumberOrderByCreatedAtDesc(String phoneNumber);
     
     java.util.Optional<Order> findByIdAndUserIsNull(Long orderId);
+
+    // สำหรับ dashboard statistics - aggregate ใน database แทนการโหลด order ทั้งหมด
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
+
+    @Query("SELECT DISTINCT o.user.id FROM Order o WHERE o.user IS NOT NULL AND o.id <= :maxId")
+    List<Long> findDistinctUserIds(@Param("maxId") Long maxId);
+
+    @Query("SELECT o.id AS id, o.status AS status FROM Order o WHERE o.updatedAt >= :since AND o.id <= :maxId")
+    List<RecentOrderStatus> findStatusesUpdatedSince(@Param("since") LocalDateTime since, @Param("maxId") Long maxId);
+
+    @Query("SELECT cast(o.createdAt as LocalDate) AS day, COUNT(o) AS orderCount, SUM(o.totalPrice) AS revenue " +
+           "FROM Order o " +
+           "WHERE o.status <> :excludedStatus AND o.id <= :maxId " +
+           "GROUP BY cast(o.createdAt as LocalDate)")
+    List<DailyOrderTotals> sumOrdersByDay(@Param("excludedStatus") Order.OrderStatus excludedStatus,
+                                          @Param("maxId") Long maxId);
+
+    @Query("SELECT extract(year from o.createdAt) AS year, extract(month from o.createdAt) AS month, " +
+           "COUNT(o) AS orderCount, SUM(o.totalPrice) AS revenue " +
+           "FROM Order o " +
+           "WHERE o.status <> :excludedStatus AND o.id <= :maxId " +
+           "GROUP BY extract(year from o.createdAt), extract(month from o.createdAt)")
+    List<MonthlyOrderTotals> sumOrdersByMonth(@Param("excludedStatus") Order.OrderStatus excludedStatus,
+                                              @Param("maxId") Long maxId);
+
+    @Query("SELECT cast(o.createdAt as LocalDate) AS day, d.id AS drinkId, d.name AS drinkName, SUM(i.quantity) AS units " +
+           "FROM OrderItem i JOIN i.order o JOIN i.predefinedDrink d " +
+           "WHERE o.status <> :excludedStatus AND o.id <= :maxId " +
+           "GROUP BY cast(o.createdAt as LocalDate), d.id, d.name")
+    List<DailyDrinkUnits> sumDrinkUnitsByDay(@Param("excludedStatus") Order.OrderStatus excludedStatus,
+                                             @Param("maxId") Long maxId);
+
+    interface RecentOrderStatus {
+        Long getId();
+        Order.OrderStatus getStatus();
+    }
+
+    interface DailyOrderTotals {
+        LocalDate getDay();
+        Long getOrderCount();
+        BigDecimal getRevenue();
+    }
+
+    interface MonthlyOrderTotals {
+        Integer getYear();
+        Integer getMonth();
+        Long getOrderCount();
+        BigDecimal getRevenue();
+    }
+
+    interface DailyDrinkUnits {
+        LocalDate getDay();
+        Long getDrinkId();
+        String getDrinkName();
+        Long getUnits();
+    }
 }
 
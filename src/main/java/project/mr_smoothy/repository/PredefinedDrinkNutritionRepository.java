@@ -0,0 +1,41 @@
+package project.mr_smoothy.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import project.mr_smoothy.entity.PredefinedDrinkNutrition;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PredefinedDrinkNutritionRepository extends JpaRepository<PredefinedDrinkNutrition, Long> {
+    List<PredefinedDrinkNutrition> findByDrinkIdOrderBySizeInMlAsc(Long drinkId);
+
+    List<PredefinedDrinkNutrition> findAllByOrderBySizeInMlAsc();
+
+    void deleteByDrinkId(Long drinkId);
+
+    /**
+     * เพิ่มหรือแก้ไขแถวของ (drink_id, cup_size_id) ในคำสั่งเดียว
+     * การคำนวณใน transaction ของเมนูและ refreshAll อาจเขียนแถวเดียวกันพร้อมกันได้
+     */
+    @Modifying
+    @Query(value = "INSERT INTO predefined_drink_nutrition " +
+            "(drink_id, cup_size_id, size_in_ml, calorie, protein, fiber, vitamins, minerals, updated_at) " +
+            "VALUES (:drinkId, :cupSizeId, :sizeInMl, :calorie, :protein, :fiber, :vitamins, :minerals, :updatedAt) " +
+            "ON DUPLICATE KEY UPDATE size_in_ml = VALUES(size_in_ml), calorie = VALUES(calorie), " +
+            "protein = VALUES(protein), fiber = VALUES(fiber), vitamins = VALUES(vitamins), " +
+            "minerals = VALUES(minerals), updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    void upsert(@Param("drinkId") Long drinkId,
+                @Param("cupSizeId") Long cupSizeId,
+                @Param("sizeInMl") int sizeInMl,
+                @Param("calorie") BigDecimal calorie,
+                @Param("protein") BigDecimal protein,
+                @Param("fiber") BigDecimal fiber,
+                @Param("vitamins") String vitamins,
+                @Param("minerals") String minerals,
+                @Param("updatedAt") LocalDateTime updatedAt);
+}
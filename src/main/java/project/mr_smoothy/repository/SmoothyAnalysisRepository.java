@@ -0,0 +1,7 @@
+package project.mr_smoothy.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import project.mr_smoothy.entity.SmoothyAnalysisEntry;
+
+public interface SmoothyAnalysisRepository extends JpaRepository<SmoothyAnalysisEntry, String> {
+}
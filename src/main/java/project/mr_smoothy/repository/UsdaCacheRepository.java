@@ -0,0 +1,18 @@
+package project.mr_smoothy.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import project.mr_smoothy.entity.UsdaCacheEntry;
+
+import java.time.LocalDateTime;
+
+public interface UsdaCacheRepository extends JpaRepository<UsdaCacheEntry, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UsdaCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
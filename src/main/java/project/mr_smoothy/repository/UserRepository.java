@@ -1,9 +1,14 @@
 package project.mr_smoothy.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.mr_smoothy.entity.User;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,5 +21,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+
+    @Query("SELECT u.id FROM User u WHERE u.createdAt >= :since AND u.id <= :maxId")
+    List<Long> findIdsCreatedSince(@Param("since") LocalDateTime since, @Param("maxId") Long maxId);
+
+    @Query("SELECT cast(u.createdAt as LocalDate) AS day, COUNT(u) AS userCount " +
+           "FROM User u WHERE u.id <= :maxId " +
+           "GROUP BY cast(u.createdAt as LocalDate)")
+    List<DailyUserCount> countUsersByDay(@Param("maxId") Long maxId);
+
+    @Query("SELECT extract(year from u.createdAt) AS year, extract(month from u.createdAt) AS month, COUNT(u) AS userCount " +
+           "FROM User u WHERE u.id <= :maxId " +
+           "GROUP BY extract(year from u.createdAt), extract(month from u.createdAt)")
+    List<MonthlyUserCount> countUsersByMonth(@Param("maxId") Long maxId);
+
+    interface DailyUserCount {
+        LocalDate getDay();
+        Long getUserCount();
+    }
+
+    interface MonthlyUserCount {
+        Integer getYear();
+        Integer getMonth();
+        Long getUserCount();
+    }
 }
 
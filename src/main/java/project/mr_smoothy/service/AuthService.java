@@ -25,6 +25,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final JwtTokenUtil jwtTokenUtil;
     private final PasswordEncoder passwordEncoder;
+    private final DashboardStatsEngine dashboardStatsEngine;
 
 
     public AuthResponse register(RegisterRequest request) {
@@ -46,6 +47,7 @@ public class AuthService {
         user.setRole(User.UserRole.USER);
 
         User savedUser = userRepository.save(user);
+        dashboardStatsEngine.recordUserRegistered(savedUser);
         log.info("User registered successfully with id: {}", savedUser.getId());
 
 
@@ -10,6 +10,7 @@ import project.mr_smoothy.dto.response.CartResponse;
 import project.mr_smoothy.entity.*;
 import project.mr_smoothy.repository.*;
 import project.mr_smoothy.util.AuthUtil;
+import project.mr_smoothy.util.Money;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,10 +22,9 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final CupSizeRepository cupSizeRepository;
-    private final FruitRepository fruitRepository;
-    private final PredefinedDrinkRepository predefinedDrinkRepository;
     private final AuthUtil authUtil;
+    private final CatalogIdResolver catalogIdResolver;
+    private final PricingEngine pricingEngine;
 
     public CartResponse getMyCart() {
         Cart cart = getOrCreateActiveCart(getCurrentUser());
@@ -47,26 +47,34 @@ public class CartService {
         User user = getCurrentUser();
         Cart cart = getOrCreateActiveCart(user);
 
+        if (request.getType() != CartAddItemRequest.Type.PREDEFINED
+                && (request.getIngredients() == null || request.getIngredients().isEmpty())) {
+            throw new RuntimeException("Custom drink requires ingredients");
+        }
+
+        // โหลดขนาดแก้ว / เครื่องดื่ม / วัตถุดิบที่อ้างถึงทั้งหมดในครั้งเดียว
+        CatalogIdResolver.Lookup lookup = catalogIdResolver.lookup().cupSize(request.getCupSizeId());
+        if (request.getType() == CartAddItemRequest.Type.PREDEFINED) {
+            lookup.drink(request.getPredefinedDrinkId());
+        } else {
+            request.getIngredients().forEach(ing -> lookup.fruit(ing.getFruitId()));
+        }
+        CatalogIdResolver.Resolved catalog = lookup.resolve();
+
         CartItem item = new CartItem();
         item.setCart(cart);
-        item.setCupSize(cupSizeRepository.findById(request.getCupSizeId()).orElseThrow(() -> new RuntimeException("Cup size not found")));
+        item.setCupSize(catalog.cupSize(request.getCupSizeId()));
         item.setQuantity(request.getQuantity());
 
         if (request.getType() == CartAddItemRequest.Type.PREDEFINED) {
-            PredefinedDrink drink = predefinedDrinkRepository.findById(request.getPredefinedDrinkId())
-                    .orElseThrow(() -> new RuntimeException("Predefined drink not found"));
             item.setType(CartItem.ItemType.PREDEFINED);
-            item.setPredefinedDrink(drink);
+            item.setPredefinedDrink(catalog.drink(request.getPredefinedDrinkId()));
         } else {
             item.setType(CartItem.ItemType.CUSTOM);
-            if (request.getIngredients() == null || request.getIngredients().isEmpty()) {
-                throw new RuntimeException("Custom drink requires ingredients");
-            }
             for (CartAddItemRequest.Ingredient ing : request.getIngredients()) {
-                Fruit fruit = fruitRepository.findById(ing.getFruitId()).orElseThrow(() -> new RuntimeException("Fruit not found: " + ing.getFruitId()));
                 CartItemFruit cif = new CartItemFruit();
                 cif.setCartItem(item);
-                cif.setFruit(fruit);
+                cif.setFruit(catalog.fruit(ing.getFruitId()));
                 cif.setQuantity(ing.getQuantity());
                 item.getFruits().add(cif);
             }
@@ -108,14 +116,14 @@ public class CartService {
                         .quantity(f.getQuantity())
                         .pricePerUnit(f.getFruit().getPricePerUnit())
                         .build()).collect(Collectors.toList()))
-                .unitPrice(ci.getUnitPrice())
-                .totalPrice(ci.getTotalPrice())
+                .unitPrice(Money.toBigDecimal(pricingEngine.unitPriceCents(ci)))
+                .totalPrice(Money.toBigDecimal(pricingEngine.totalPriceCents(ci)))
                 .build()).collect(Collectors.toList());
 
         return CartResponse.builder()
                 .cartId(cart.getId())
                 .items(items)
-                .totalPrice(cart.getTotalPrice())
+                .totalPrice(Money.toBigDecimal(pricingEngine.totalPriceCents(cart.getItems())))
                 .build();
     }
 }
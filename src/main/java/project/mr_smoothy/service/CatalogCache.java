@@ -0,0 +1,220 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.dto.response.ApiResponse;
+import project.mr_smoothy.dto.response.CupSizeResponse;
+import project.mr_smoothy.dto.response.FruitResponse;
+import project.mr_smoothy.dto.response.PredefinedDrinkResponse;
+import project.mr_smoothy.event.CatalogChangedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Snapshot ของเมนูสำหรับ public API (วัตถุดิบ, ขนาดแก้ว, เครื่องดื่มทุกแบบการเรียง)
+ * สร้างครั้งเดียวแล้วเสิร์ฟจาก memory โดยไม่แตะ database
+ * จะสร้างใหม่ทั้งก้อนและสลับแบบ atomic เมื่อ admin แก้ไขเมนู (หลัง commit)
+ * ทุก snapshot มี version ใหม่ ใช้เป็น ETag ของ endpoint เมนูโดยไม่ต้อง hash response
+ * response ของแต่ละ endpoint / sortBy ถูก serialize เป็น JSON bytes (และ gzip) ไว้ล่วงหน้า
+ */
+@Service
+@Slf4j
+public class CatalogCache {
+
+    private final FruitService fruitService;
+    private final CupSizeService cupSizeService;
+    private final PredefinedDrinkService predefinedDrinkService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * เวลาเริ่ม process - ทำให้ ETag ไม่ซ้ำกับของ process ก่อนหน้าที่ version เริ่มจาก 1 เหมือนกัน
+     */
+    private static final String BOOT_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final String FRUITS = "fruits";
+    private static final String SEASONAL_INGREDIENTS = "seasonal-ingredients";
+    private static final String CUP_SIZES = "cup-sizes";
+    private static final String DRINKS = "drinks:";
+    private static final String POPULAR_DRINKS = "popular-drinks:";
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public CatalogCache(FruitService fruitService,
+                        CupSizeService cupSizeService,
+                        PredefinedDrinkService predefinedDrinkService,
+                        PlatformTransactionManager transactionManager,
+                        ObjectMapper objectMapper) {
+        this.fruitService = fruitService;
+        this.cupSizeService = cupSizeService;
+        this.predefinedDrinkService = predefinedDrinkService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CatalogChangedEvent.ORDER_SNAPSHOT)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // database อาจยังไม่พร้อม - จะสร้างใหม่ตอนมี request แรก
+            log.warn("Could not build catalog snapshot on startup: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(CatalogChangedEvent.ORDER_SNAPSHOT)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.info("Catalog changed ({}), rebuilding snapshot", event.type());
+        rebuild();
+    }
+
+    /**
+     * คืน snapshot ปัจจุบัน (สร้างใหม่ถ้ายังไม่เคยสร้าง)
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            return snapshot != null ? snapshot : rebuild();
+        }
+    }
+
+    /**
+     * อ่านเมนูทั้งหมดใน transaction เดียวแล้วสลับ snapshot
+     */
+    public synchronized Snapshot rebuild() {
+        Snapshot.SnapshotBuilder builder = readOnlyTransaction.execute(status -> Snapshot.builder()
+                .version(version.incrementAndGet())
+                .fruits(List.copyOf(fruitService.listActive()))
+                .seasonalIngredients(List.copyOf(fruitService.listSeasonal()))
+                .cupSizes(List.copyOf(cupSizeService.listActive()))
+                .drinksBySort(Map.copyOf(predefinedDrinkService.listActiveBySortOption(false)))
+                .popularDrinksBySort(Map.copyOf(predefinedDrinkService.listActiveBySortOption(true))));
+        Snapshot snapshot = builder.bodies(serializeBodies(builder.build())).build();
+        current.set(snapshot);
+        log.info("Catalog snapshot v{} rebuilt: {} fruits, {} cup sizes, {} drinks",
+                snapshot.getVersion(), snapshot.getFruits().size(), snapshot.getCupSizes().size(), snapshot.drinks(null).size());
+        return snapshot;
+    }
+
+    /**
+     * Serialize ApiResponse ของทุก endpoint / sortBy ครั้งเดียวต่อ snapshot
+     * (timestamp ใน response จึงเป็นเวลาที่สร้าง snapshot)
+     */
+    private Map<String, SerializedBody> serializeBodies(Snapshot snapshot) {
+        Map<String, SerializedBody> bodies = new HashMap<>();
+        bodies.put(FRUITS, serialize(snapshot.getFruits()));
+        bodies.put(SEASONAL_INGREDIENTS, serialize(snapshot.getSeasonalIngredients()));
+        bodies.put(CUP_SIZES, serialize(snapshot.getCupSizes()));
+        snapshot.getDrinksBySort().forEach((sortBy, drinks) -> bodies.put(DRINKS + sortBy, serialize(drinks)));
+        snapshot.getPopularDrinksBySort().forEach((sortBy, drinks) -> bodies.put(POPULAR_DRINKS + sortBy, serialize(drinks)));
+        return Map.copyOf(bodies);
+    }
+
+    private SerializedBody serialize(Object data) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(ApiResponse.success("OK", data));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(json);
+            }
+            return new SerializedBody(json, buffer.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * เปลี่ยน sortBy จาก request ให้เป็น key ที่มีใน snapshot (ค่าที่ไม่รองรับ = เรียงตาม ID)
+     */
+    static String normalizeSort(String sortBy) {
+        if (sortBy == null) {
+            return "";
+        }
+        String key = sortBy.toLowerCase();
+        return PredefinedDrinkService.SORT_OPTIONS.contains(key) ? key : "";
+    }
+
+    @Getter
+    @Builder
+    public static class Snapshot {
+        private final long version;
+        private final List<FruitResponse> fruits;
+        private final List<FruitResponse> seasonalIngredients;
+        private final List<CupSizeResponse> cupSizes;
+        private final Map<String, List<PredefinedDrinkResponse>> drinksBySort;
+        private final Map<String, List<PredefinedDrinkResponse>> popularDrinksBySort;
+        private final Map<String, SerializedBody> bodies;
+
+        /**
+         * Strong ETag ของ snapshot นี้ (เปลี่ยนทุกครั้งที่เมนูถูกแก้ไข)
+         */
+        public String etag() {
+            return "\"" + BOOT_EPOCH + "-" + version + "\"";
+        }
+
+        public List<PredefinedDrinkResponse> drinks(String sortBy) {
+            return drinksBySort.get(normalizeSort(sortBy));
+        }
+
+        public List<PredefinedDrinkResponse> popularDrinks(String sortBy) {
+            return popularDrinksBySort.get(normalizeSort(sortBy));
+        }
+
+        public SerializedBody fruitsBody() {
+            return bodies.get(FRUITS);
+        }
+
+        public SerializedBody seasonalIngredientsBody() {
+            return bodies.get(SEASONAL_INGREDIENTS);
+        }
+
+        public SerializedBody cupSizesBody() {
+            return bodies.get(CUP_SIZES);
+        }
+
+        public SerializedBody drinksBody(String sortBy) {
+            return bodies.get(DRINKS + normalizeSort(sortBy));
+        }
+
+        public SerializedBody popularDrinksBody(String sortBy) {
+            return bodies.get(POPULAR_DRINKS + normalizeSort(sortBy));
+        }
+    }
+
+    /**
+     * ApiResponse ที่ serialize แล้วเป็น UTF-8 JSON และแบบ gzip (ห้ามแก้ไข array)
+     */
+    public record SerializedBody(byte[] json, byte[] gzip) {
+    }
+}
@@ -0,0 +1,130 @@
+package project.mr_smoothy.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import project.mr_smoothy.entity.CupSize;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.entity.PredefinedDrink;
+import project.mr_smoothy.repository.CupSizeRepository;
+import project.mr_smoothy.repository.FruitRepository;
+import project.mr_smoothy.repository.PredefinedDrinkRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * รวบรวม id ของขนาดแก้ว / เครื่องดื่ม / วัตถุดิบที่ request อ้างถึงทั้งหมดก่อน
+ * แล้วโหลดด้วย findAllById ครั้งเดียวต่อประเภท แทนการ findById ทีละรายการ
+ * ถ้ามี id ที่ไม่พบจะแจ้งทุกตัวพร้อมกันใน exception เดียว
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogIdResolver {
+
+    private final CupSizeRepository cupSizeRepository;
+    private final PredefinedDrinkRepository predefinedDrinkRepository;
+    private final FruitRepository fruitRepository;
+
+    public Lookup lookup() {
+        return new Lookup();
+    }
+
+    /**
+     * ตัวรวบรวม id ก่อนโหลด (ใช้ภายใน request เดียว ไม่ thread-safe)
+     */
+    public class Lookup {
+        private final Set<Long> cupSizeIds = new LinkedHashSet<>();
+        private final Set<Long> drinkIds = new LinkedHashSet<>();
+        private final Set<Long> fruitIds = new LinkedHashSet<>();
+
+        public Lookup cupSize(Long id) {
+            if (id != null) cupSizeIds.add(id);
+            return this;
+        }
+
+        public Lookup drink(Long id) {
+            if (id != null) drinkIds.add(id);
+            return this;
+        }
+
+        public Lookup fruit(Long id) {
+            if (id != null) fruitIds.add(id);
+            return this;
+        }
+
+        /**
+         * โหลดทุก id ที่รวบรวมไว้ (query ละหนึ่งครั้งต่อประเภทที่มี id)
+         * @throws RuntimeException ถ้ามี id ที่ไม่พบ โดยระบุ id ที่ไม่พบทั้งหมด
+         */
+        public Resolved resolve() {
+            Map<Long, CupSize> cupSizes = load(cupSizeIds, cupSizeRepository::findAllById, CupSize::getId);
+            Map<Long, PredefinedDrink> drinks = load(drinkIds, predefinedDrinkRepository::findAllById, PredefinedDrink::getId);
+            Map<Long, Fruit> fruits = load(fruitIds, fruitRepository::findAllById, Fruit::getId);
+
+            List<String> missing = new ArrayList<>();
+            addMissing(missing, "Cup size", cupSizeIds, cupSizes);
+            addMissing(missing, "Predefined drink", drinkIds, drinks);
+            addMissing(missing, "Fruit", fruitIds, fruits);
+            if (!missing.isEmpty()) {
+                throw new RuntimeException(String.join("; ", missing));
+            }
+            return new Resolved(cupSizes, drinks, fruits);
+        }
+    }
+
+    /**
+     * ผลลัพธ์ที่โหลดแล้ว ใช้ดึง entity ตาม id ที่รวบรวมไว้
+     */
+    public static class Resolved {
+        private final Map<Long, CupSize> cupSizes;
+        private final Map<Long, PredefinedDrink> drinks;
+        private final Map<Long, Fruit> fruits;
+
+        private Resolved(Map<Long, CupSize> cupSizes, Map<Long, PredefinedDrink> drinks, Map<Long, Fruit> fruits) {
+            this.cupSizes = cupSizes;
+            this.drinks = drinks;
+            this.fruits = fruits;
+        }
+
+        public CupSize cupSize(Long id) {
+            return require(cupSizes, id, "Cup size");
+        }
+
+        public PredefinedDrink drink(Long id) {
+            return require(drinks, id, "Predefined drink");
+        }
+
+        public Fruit fruit(Long id) {
+            return require(fruits, id, "Fruit");
+        }
+
+        private static <T> T require(Map<Long, T> entities, Long id, String label) {
+            T entity = id != null ? entities.get(id) : null;
+            if (entity == null) {
+                throw new RuntimeException(label + " not found: " + id);
+            }
+            return entity;
+        }
+    }
+
+    private static <T> Map<Long, T> load(Set<Long> ids, Function<Set<Long>, List<T>> finder, Function<T, Long> idOf) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return finder.apply(ids).stream().collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    private static void addMissing(List<String> missing, String label, Set<Long> requested, Map<Long, ?> found) {
+        List<Long> notFound = requested.stream()
+                .filter(id -> !found.containsKey(id))
+                .collect(Collectors.toList());
+        if (!notFound.isEmpty()) {
+            missing.add(label + " not found: " + notFound.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+        }
+    }
+}
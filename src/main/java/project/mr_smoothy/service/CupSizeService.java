@@ -1,12 +1,14 @@
 package project.mr_smoothy.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.mr_smoothy.dto.request.CupSizeCreateRequest;
 import project.mr_smoothy.dto.request.CupSizeUpdateRequest;
 import project.mr_smoothy.dto.response.CupSizeResponse;
 import project.mr_smoothy.entity.CupSize;
+import project.mr_smoothy.event.CatalogChangedEvent;
 import project.mr_smoothy.repository.CupSizeRepository;
 
 import java.util.List;
@@ -18,6 +20,7 @@ import java.util.stream.Collectors;
 public class CupSizeService {
 
     private final CupSizeRepository cupSizeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CupSizeResponse create(CupSizeCreateRequest request) {
         if (cupSizeRepository.existsByNameIgnoreCase(request.getName())) {
@@ -28,7 +31,9 @@ public class CupSizeService {
         cs.setSizeInMl(request.getVolumeMl());
         cs.setPrice(request.getPriceExtra());
         cs.setActive(request.getActive() != null ? request.getActive() : true);
-        return toResponse(cupSizeRepository.save(cs));
+        CupSize saved = cupSizeRepository.save(cs);
+        publishCatalogChanged();
+        return toResponse(saved);
     }
 
     public CupSizeResponse update(Long id, CupSizeUpdateRequest request) {
@@ -37,12 +42,15 @@ public class CupSizeService {
         if (request.getVolumeMl() != null) cs.setSizeInMl(request.getVolumeMl());
         if (request.getPriceExtra() != null) cs.setPrice(request.getPriceExtra());
         if (request.getActive() != null) cs.setActive(request.getActive());
-        return toResponse(cupSizeRepository.save(cs));
+        CupSize saved = cupSizeRepository.save(cs);
+        publishCatalogChanged();
+        return toResponse(saved);
     }
 
     public void delete(Long id) {
         if (!cupSizeRepository.existsById(id)) throw new RuntimeException("Cup size not found");
         cupSizeRepository.deleteById(id);
+        publishCatalogChanged();
     }
 
     public CupSizeResponse get(Long id) {
@@ -59,6 +67,10 @@ public class CupSizeService {
         return cupSizeRepository.findByActiveTrue().stream().map(this::toResponse).collect(Collectors.toList());
     }
 
+    private void publishCatalogChanged() {
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.CUP_SIZE));
+    }
+
     private CupSizeResponse toResponse(CupSize c) {
         return CupSizeResponse.builder()
                 .id(c.getId())
@@ -0,0 +1,438 @@
+package project.mr_smoothy.service;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.mr_smoothy.entity.Order;
+import project.mr_smoothy.entity.OrderItem;
+import project.mr_smoothy.entity.User;
+import project.mr_smoothy.repository.OrderRepository;
+import project.mr_smoothy.repository.UserRepository;
+import project.mr_smoothy.util.Money;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Pre-aggregated counters for the admin dashboard.
+ * Keeps order count, revenue, new users and units sold per drink for every day and every month,
+ * so reading the dashboard never scans the orders or users tables.
+ *
+ * Counters are seeded once when the application starts and are then moved forward
+ * after each order/user transaction commits. Cancelled orders do not count towards
+ * orders, revenue or units sold.
+ *
+ * A commit callback can race a rebuild: ids are assigned at insert, not at commit, so an
+ * order with a lower id may still be uncommitted when the seed reads a higher one. Whether
+ * the seed already saw an order is therefore decided by membership: the rebuild also reads
+ * the ids (and status) of every order touched within {@link #RECENT_WINDOW}, and callbacks
+ * for those orders are reconciled against what the seed read instead of applied blindly.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardStatsEngine {
+
+    /** How long a commit callback may lag behind its transaction and still be reconciled with a rebuild */
+    static final Duration RECENT_WINDOW = Duration.ofMinutes(10);
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+
+    private final NavigableMap<LocalDate, Counters> daily = new TreeMap<>();
+    private final Map<YearMonth, Counters> monthly = new HashMap<>();
+    private final Counters allTime = new Counters();
+    private final Map<Long, String> drinkNames = new HashMap<>();
+    private final Set<Long> activeUserIds = new HashSet<>();
+    private long totalUsers;
+    private boolean seeded;
+
+    /** counted state already reflected in the counters for recently touched orders, oldest first */
+    private final LinkedHashMap<Long, RecentOrder> recentOrders = new LinkedHashMap<>();
+    /** users the last rebuild already counted among those registered within the window, oldest first */
+    private final LinkedHashMap<Long, LocalDateTime> recentUserIds = new LinkedHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seedOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not seed dashboard statistics on startup: {}. Will retry on first dashboard request.",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds every counter from the database.
+     * Each kind of counter is loaded with a single grouped SQL statement, so a rebuild costs
+     * a handful of round trips and never loads order or user rows into memory.
+     * All statements run in one read-only transaction, so they see the same snapshot; the orders
+     * and users touched within {@link #RECENT_WINDOW} are remembered so that commit callbacks
+     * racing this rebuild are neither lost nor counted twice.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        log.info("Rebuilding dashboard statistics");
+        reset();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime recentSince = now.minus(RECENT_WINDOW);
+        long maxOrderId = valueOrZero(orderRepository.findMaxId());
+        long maxUserId = valueOrZero(userRepository.findMaxId());
+
+        for (OrderRepository.RecentOrderStatus row : orderRepository.findStatusesUpdatedSince(recentSince, maxOrderId)) {
+            recentOrders.put(row.getId(), new RecentOrder(row.getStatus() != Order.OrderStatus.CANCELLED, now));
+        }
+        for (Long userId : userRepository.findIdsCreatedSince(recentSince, maxUserId)) {
+            recentUserIds.put(userId, now);
+        }
+
+        for (OrderRepository.DailyOrderTotals row : orderRepository.sumOrdersByDay(Order.OrderStatus.CANCELLED, maxOrderId)) {
+            long revenue = Money.toMinor(row.getRevenue());
+            if (row.getDay() != null) {
+                daily.computeIfAbsent(row.getDay(), d -> new Counters()).addOrders(row.getOrderCount(), revenue);
+            }
+            allTime.addOrders(row.getOrderCount(), revenue);
+        }
+        for (OrderRepository.MonthlyOrderTotals row : orderRepository.sumOrdersByMonth(Order.OrderStatus.CANCELLED, maxOrderId)) {
+            if (row.getYear() != null && row.getMonth() != null) {
+                monthly.computeIfAbsent(YearMonth.of(row.getYear(), row.getMonth()), m -> new Counters())
+                        .addOrders(row.getOrderCount(), Money.toMinor(row.getRevenue()));
+            }
+        }
+        for (OrderRepository.DailyDrinkUnits row : orderRepository.sumDrinkUnitsByDay(Order.OrderStatus.CANCELLED, maxOrderId)) {
+            long units = valueOrZero(row.getUnits());
+            if (row.getDay() != null) {
+                daily.computeIfAbsent(row.getDay(), d -> new Counters()).drinkUnits.merge(row.getDrinkId(), units, Long::sum);
+                monthly.computeIfAbsent(YearMonth.from(row.getDay()), m -> new Counters()).drinkUnits.merge(row.getDrinkId(), units, Long::sum);
+            }
+            allTime.drinkUnits.merge(row.getDrinkId(), units, Long::sum);
+            drinkNames.put(row.getDrinkId(), row.getDrinkName());
+        }
+        activeUserIds.addAll(orderRepository.findDistinctUserIds(maxOrderId));
+
+        for (UserRepository.DailyUserCount row : userRepository.countUsersByDay(maxUserId)) {
+            long users = valueOrZero(row.getUserCount());
+            if (row.getDay() != null) {
+                daily.computeIfAbsent(row.getDay(), d -> new Counters()).newUsers += users;
+            }
+            allTime.newUsers += users;
+            totalUsers += users;
+        }
+        for (UserRepository.MonthlyUserCount row : userRepository.countUsersByMonth(maxUserId)) {
+            if (row.getYear() != null && row.getMonth() != null) {
+                monthly.computeIfAbsent(YearMonth.of(row.getYear(), row.getMonth()), m -> new Counters()).newUsers
+                        += valueOrZero(row.getUserCount());
+            }
+        }
+
+        seeded = true;
+        log.info("Dashboard statistics rebuilt: {} orders, {} users", allTime.orders, totalUsers);
+    }
+
+    /**
+     * Counts a newly created order once the surrounding transaction commits.
+     */
+    public void recordOrderPlaced(Order order) {
+        OrderDelta delta = OrderDelta.of(order);
+        Long userId = order.getUser() != null ? order.getUser().getId() : null;
+        boolean counted = order.getStatus() != Order.OrderStatus.CANCELLED;
+        afterCommit(() -> applyOrderPlaced(delta, userId, counted));
+    }
+
+    /**
+     * Moves an order in or out of the counters when it is cancelled or un-cancelled.
+     */
+    public void recordStatusChange(Order order, Order.OrderStatus previousStatus) {
+        boolean wasCounted = previousStatus != Order.OrderStatus.CANCELLED;
+        boolean isCounted = order.getStatus() != Order.OrderStatus.CANCELLED;
+        if (wasCounted == isCounted) {
+            return;
+        }
+        OrderDelta delta = OrderDelta.of(order);
+        afterCommit(() -> applyStatusChange(delta, isCounted));
+    }
+
+    /**
+     * Counts a newly registered user once the surrounding transaction commits.
+     */
+    public void recordUserRegistered(User user) {
+        Long userId = user.getId();
+        LocalDateTime createdAt = user.getCreatedAt();
+        afterCommit(() -> applyUserRegistered(userId, createdAt));
+    }
+
+    public synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Returns a consistent view of the counters.
+     * Work done here depends only on the number of days in the comparison windows and the
+     * number of drinks on the menu, never on the number of orders or users.
+     */
+    public synchronized Snapshot snapshot() {
+        LocalDate today = LocalDate.now();
+        LocalDate windowStart = today.minusMonths(1);
+        LocalDate previousWindowStart = windowStart.minusMonths(1);
+
+        Counters currentWindow = sum(daily.tailMap(windowStart, false));
+        Counters previousWindow = sum(daily.subMap(previousWindowStart, false, windowStart, true));
+        Counters thisMonth = monthly.getOrDefault(YearMonth.from(today), new Counters());
+
+        Long bestSellingDrinkId = bestSeller(allTime.drinkUnits);
+
+        return Snapshot.builder()
+                .totalOrders(allTime.orders)
+                .revenue(allTime.revenue)
+                .totalUsers(totalUsers)
+                .activeUsers(activeUserIds.size())
+                .bestSellingDrink(bestSellingDrinkId != null ? drinkNames.get(bestSellingDrinkId) : null)
+                .ordersCurrentWindow(currentWindow.orders)
+                .ordersPreviousWindow(previousWindow.orders)
+                .revenueCurrentWindow(currentWindow.revenue)
+                .revenuePreviousWindow(previousWindow.revenue)
+                .bestSellerUnitsCurrentWindow(bestSellingDrinkId != null
+                        ? currentWindow.drinkUnits.getOrDefault(bestSellingDrinkId, 0L) : 0L)
+                .bestSellerUnitsPreviousWindow(bestSellingDrinkId != null
+                        ? previousWindow.drinkUnits.getOrDefault(bestSellingDrinkId, 0L) : 0L)
+                .ordersThisMonth(thisMonth.orders)
+                .revenueThisMonth(thisMonth.revenue)
+                .build();
+    }
+
+    private synchronized void applyOrderPlaced(OrderDelta delta, Long userId, boolean counted) {
+        if (!seeded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        prune(now);
+        if (userId != null) {
+            activeUserIds.add(userId);
+        }
+        // The last rebuild already read this order
+        if (recentOrders.containsKey(delta.orderId)) {
+            return;
+        }
+        if (counted) {
+            apply(delta, 1);
+        }
+        remember(delta.orderId, counted, now);
+    }
+
+    private synchronized void applyStatusChange(OrderDelta delta, boolean counted) {
+        if (!seeded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        prune(now);
+        // The rebuild (or an earlier callback) already reflects this state, e.g. a cancel committed just before the seed read
+        RecentOrder known = recentOrders.get(delta.orderId);
+        if (known != null && known.counted() == counted) {
+            return;
+        }
+        apply(delta, counted ? 1 : -1);
+        remember(delta.orderId, counted, now);
+    }
+
+    private synchronized void applyUserRegistered(Long userId, LocalDateTime createdAt) {
+        if (!seeded) {
+            return;
+        }
+        prune(LocalDateTime.now());
+        // The last rebuild already counted this user
+        if (userId != null && recentUserIds.remove(userId) != null) {
+            return;
+        }
+        applyNewUser(createdAt);
+    }
+
+    private void remember(long orderId, boolean counted, LocalDateTime now) {
+        // re-insert so the map stays ordered by last touch and prune can stop at the first fresh entry
+        recentOrders.remove(orderId);
+        recentOrders.put(orderId, new RecentOrder(counted, now));
+    }
+
+    private void prune(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(RECENT_WINDOW);
+        for (Iterator<RecentOrder> it = recentOrders.values().iterator(); it.hasNext(); ) {
+            if (!it.next().touchedAt().isBefore(cutoff)) {
+                break;
+            }
+            it.remove();
+        }
+        for (Iterator<LocalDateTime> it = recentUserIds.values().iterator(); it.hasNext(); ) {
+            if (!it.next().isBefore(cutoff)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private void apply(OrderDelta delta, int sign) {
+        daily.computeIfAbsent(delta.day, d -> new Counters()).addOrder(delta, sign);
+        monthly.computeIfAbsent(YearMonth.from(delta.day), m -> new Counters()).addOrder(delta, sign);
+        allTime.addOrder(delta, sign);
+        drinkNames.putAll(delta.drinkNames);
+    }
+
+    private void applyNewUser(LocalDateTime createdAt) {
+        LocalDate day = createdAt != null ? createdAt.toLocalDate() : LocalDate.now();
+        daily.computeIfAbsent(day, d -> new Counters()).newUsers++;
+        monthly.computeIfAbsent(YearMonth.from(day), m -> new Counters()).newUsers++;
+        allTime.newUsers++;
+        totalUsers++;
+    }
+
+    private void reset() {
+        daily.clear();
+        monthly.clear();
+        allTime.clear();
+        drinkNames.clear();
+        activeUserIds.clear();
+        totalUsers = 0;
+        recentOrders.clear();
+        recentUserIds.clear();
+        seeded = false;
+    }
+
+    private static long valueOrZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static Counters sum(Map<LocalDate, Counters> days) {
+        Counters result = new Counters();
+        for (Counters day : days.values()) {
+            result.orders += day.orders;
+            result.revenue = Money.add(result.revenue, day.revenue);
+            result.newUsers += day.newUsers;
+            day.drinkUnits.forEach((drinkId, units) -> result.drinkUnits.merge(drinkId, units, Long::sum));
+        }
+        return result;
+    }
+
+    private static Long bestSeller(Map<Long, Long> drinkUnits) {
+        return drinkUnits.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Running totals for one bucket (a day, a month or all time).
+     */
+    private static class Counters {
+        private long orders;
+        private long revenue; // หน่วยย่อย (สตางค์)
+        private long newUsers;
+        private final Map<Long, Long> drinkUnits = new HashMap<>();
+
+        private void addOrders(long count, long amount) {
+            orders += count;
+            revenue = Money.add(revenue, amount);
+        }
+
+        private void addOrder(OrderDelta delta, int sign) {
+            orders += sign;
+            revenue = sign > 0 ? Money.add(revenue, delta.revenue) : Money.subtract(revenue, delta.revenue);
+            delta.drinkUnits.forEach((drinkId, units) -> drinkUnits.merge(drinkId, sign * units, Long::sum));
+        }
+
+        private void clear() {
+            orders = 0;
+            revenue = 0;
+            newUsers = 0;
+            drinkUnits.clear();
+        }
+    }
+
+    /**
+     * Whether the counters include a recently touched order, and when that was last decided.
+     */
+    private record RecentOrder(boolean counted, LocalDateTime touchedAt) {
+    }
+
+    /**
+     * The part of an order the counters care about, captured before the transaction commits.
+     */
+    private static class OrderDelta {
+        private final long orderId;
+        private final LocalDate day;
+        private final long revenue;
+        private final Map<Long, Long> drinkUnits = new HashMap<>();
+        private final Map<Long, String> drinkNames = new HashMap<>();
+
+        private OrderDelta(Order order) {
+            this.orderId = order.getId() != null ? order.getId() : Long.MAX_VALUE;
+            this.day = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+            this.revenue = Money.toMinor(order.getTotalPrice());
+            if (order.getItems() != null) {
+                for (OrderItem item : order.getItems()) {
+                    if (item == null || item.getPredefinedDrink() == null || item.getQuantity() == null) {
+                        continue;
+                    }
+                    Long drinkId = item.getPredefinedDrink().getId();
+                    drinkUnits.merge(drinkId, item.getQuantity().longValue(), Long::sum);
+                    drinkNames.put(drinkId, item.getPredefinedDrink().getName());
+                }
+            }
+        }
+
+        private static OrderDelta of(Order order) {
+            return new OrderDelta(order);
+        }
+    }
+
+    /**
+     * Read-only view of the counters. Revenue values are in minor units (see Money).
+     */
+    @Getter
+    @Builder
+    public static class Snapshot {
+        private final long totalOrders;
+        private final long revenue;
+        private final long totalUsers;
+        private final long activeUsers;
+        private final String bestSellingDrink;
+        private final long ordersCurrentWindow;
+        private final long ordersPreviousWindow;
+        private final long revenueCurrentWindow;
+        private final long revenuePreviousWindow;
+        private final long bestSellerUnitsCurrentWindow;
+        private final long bestSellerUnitsPreviousWindow;
+        private final long ordersThisMonth;
+        private final long revenueThisMonth;
+    }
+}
@@ -0,0 +1,191 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Service;
+import project.mr_smoothy.entity.LearnedTranslation;
+import project.mr_smoothy.repository.LearnedTranslationRepository;
+import project.mr_smoothy.util.AhoCorasickMatcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * แปลชื่อวัตถุดิบ (ไทย) เป็นภาษาอังกฤษสำหรับค้นหาใน USDA
+ * 1. dictionary จาก translations/thai-english.json - กฎแรกที่ตรง (ตามลำดับในไฟล์) ชนะ
+ *    ทุกคำแบบ contains ถูก compile เป็น Aho–Corasick จึงอ่านชื่อเพียงรอบเดียว
+ * 2. ชื่อที่เป็นภาษาอังกฤษอยู่แล้วใช้ตามเดิม
+ * 3. คำแปลที่เคยได้จาก OpenAI (ตาราง learned_translations)
+ * 4. ถามจาก OpenAI แล้วบันทึกเป็น learned translation
+ */
+@Service
+@Slf4j
+public class FoodNameTranslator {
+
+    private final OpenAIService openAIService;
+    private final LearnedTranslationRepository learnedTranslationRepository;
+
+    private final List<String> englishNames;
+    private final AhoCorasickMatcher containsMatcher;
+    private final Map<String, Integer> exactMatches;
+    private final Map<String, String> learned = new ConcurrentHashMap<>();
+
+    public FoodNameTranslator(OpenAIService openAIService,
+                              LearnedTranslationRepository learnedTranslationRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${translation.dictionary:classpath:translations/thai-english.json}") String dictionary) {
+        this.openAIService = openAIService;
+        this.learnedTranslationRepository = learnedTranslationRepository;
+
+        List<Rule> rules = loadRules(objectMapper, dictionary);
+        Map<String, Integer> containsPatterns = new HashMap<>();
+        Map<String, Integer> exact = new HashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            int priority = i;
+            rule.containsOrEmpty().forEach(p -> containsPatterns.merge(normalize(p), priority, Math::min));
+            rule.equalsOrEmpty().forEach(p -> exact.merge(normalize(p), priority, Math::min));
+        }
+        this.englishNames = rules.stream().map(Rule::english).toList();
+        this.containsMatcher = new AhoCorasickMatcher(containsPatterns);
+        this.exactMatches = Map.copyOf(exact);
+        log.info("Loaded {} food name translation rules", rules.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLearned() {
+        try {
+            learnedTranslationRepository.findAll()
+                    .forEach(t -> learned.put(t.getSourceName(), t.getEnglishName()));
+            log.info("Loaded {} learned food name translations", learned.size());
+        } catch (Exception e) {
+            log.warn("Could not load learned translations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Translate food name to English if needed
+     * Falls back to OpenAI translation (remembered for next time) if not found in the dictionary
+     */
+    public String translateToEnglish(String foodName) {
+        String lowerName = normalize(foodName);
+
+        String mapped = lookupDictionary(lowerName);
+        if (mapped != null) {
+            return mapped;
+        }
+
+        // If already in English, return as is
+        if (foodName.matches("^[a-zA-Z0-9\\s]+$")) {
+            return foodName;
+        }
+
+        String remembered = learned.get(lowerName);
+        if (remembered == null) {
+            remembered = learnedTranslationRepository.findById(lowerName)
+                    .map(LearnedTranslation::getEnglishName)
+                    .orElse(null);
+            if (remembered != null) {
+                learned.put(lowerName, remembered);
+            }
+        }
+        if (remembered != null) {
+            return remembered;
+        }
+
+        // If Thai name not found in mapping, use OpenAI to translate
+        log.info("Could not find mapping for '{}'. Using OpenAI to translate to English.", foodName);
+        String englishName = translateWithOpenAI(foodName);
+        if (englishName != null) {
+            log.info("OpenAI translated '{}' to '{}'", foodName, englishName);
+            learn(lowerName, englishName);
+            return englishName;
+        }
+
+        // Fallback: return original name
+        return foodName;
+    }
+
+    /**
+     * @return คำแปลจาก dictionary หรือ null ถ้าไม่มีกฎที่ตรง
+     */
+    String lookupDictionary(String lowerName) {
+        int rule = Math.min(containsMatcher.bestMatch(lowerName),
+                exactMatches.getOrDefault(lowerName, AhoCorasickMatcher.NO_MATCH));
+        return rule == AhoCorasickMatcher.NO_MATCH ? null : englishNames.get(rule);
+    }
+
+    /**
+     * Translate food name to English using OpenAI
+     * Only plain English answers are accepted so a chatty reply is never learned
+     */
+    private String translateWithOpenAI(String foodName) {
+        try {
+            String prompt = String.format(
+                "Translate the following food/ingredient name to English. " +
+                "Return ONLY the English name, nothing else. " +
+                "If it's already in English, return it as is.\n\n" +
+                "Name: %s\n\n" +
+                "English name:",
+                foodName
+            );
+
+            String response = openAIService.callOpenAI(prompt);
+            String englishName = response.trim().replaceAll("^[\"'`]+|[\"'`.]+$", "").trim();
+            if (englishName.isEmpty() || englishName.length() > 100 || !englishName.matches("^[a-zA-Z0-9\\s,'-]+$")) {
+                log.warn("Ignoring OpenAI translation for '{}': {}", foodName, response);
+                return null;
+            }
+            return englishName;
+        } catch (Exception e) {
+            log.warn("Failed to translate '{}' with OpenAI: {}. Using original name.", foodName, e.getMessage());
+            return null;
+        }
+    }
+
+    private void learn(String lowerName, String englishName) {
+        learned.put(lowerName, englishName);
+        try {
+            learnedTranslationRepository.save(new LearnedTranslation(lowerName, englishName, LocalDateTime.now()));
+        } catch (Exception e) {
+            log.warn("Could not store learned translation for '{}': {}", lowerName, e.getMessage());
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static List<Rule> loadRules(ObjectMapper objectMapper, String location) {
+        try (InputStream in = new DefaultResourceLoader().getResource(location).getInputStream()) {
+            return objectMapper.readValue(in, new TypeReference<List<Rule>>() { });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load food name dictionary: " + location, e);
+        }
+    }
+
+    /**
+     * กฎหนึ่งข้อใน dictionary: ชื่อที่มีคำใน contains หรือเท่ากับคำใน equals แปลเป็น english
+     */
+    record Rule(String english, List<String> contains, List<String> equals) {
+        List<String> containsOrEmpty() {
+            return contains != null ? contains : List.of();
+        }
+
+        List<String> equalsOrEmpty() {
+            return equals != null ? equals : List.of();
+        }
+    }
+}
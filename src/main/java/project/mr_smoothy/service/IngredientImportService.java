@@ -0,0 +1,340 @@
+package project.mr_smoothy.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.dto.request.IngredientAddRequest;
+import project.mr_smoothy.dto.response.IngredientImportResponse;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.event.CatalogChangedEvent;
+import project.mr_smoothy.repository.FruitRepository;
+import project.mr_smoothy.util.CsvParser;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * นำเข้าวัตถุดิบหลายรายการในครั้งเดียว (JSON array หรือ CSV)
+ * 1. ตรวจสอบทุกแถว (ชื่อว่าง, ราคาติดลบ, ชื่อซ้ำกับที่มีอยู่/ซ้ำในไฟล์)
+ * 2. บันทึกด้วย JDBC batch insert ทีละ chunk ใน transaction สั้นๆ ของตัวเอง
+ *    ถ้า chunk ชนกับชื่อที่ import อื่นเพิ่งบันทึก จะบันทึก chunk นั้นใหม่ทีละแถวและรายงานแถวที่ชนเป็น DUPLICATE
+ * 3. แถวที่ขอข้อมูลโภชนาการถูกบันทึกเป็น PENDING แล้วส่งเข้าคิวของ {@link NutritionEnrichmentService}
+ *    (ไม่เรียก USDA / OpenAI ระหว่าง request)
+ * คืนผลลัพธ์ของทุกแถวตามลำดับเดิม
+ */
+@Service
+@Slf4j
+public class IngredientImportService {
+
+    private static final int INSERT_BATCH_SIZE = 100;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO ingredients (name, description, image_url, price_per_unit, category, active, seasonal, " +
+            "calorie, protein, fiber, vitamins, minerals, flavor_profile, taste_notes, best_mix_pairing, avoid_pairing, " +
+            "raw_usda_data, nutrition_status, nutrition_error, nutrition_updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final FruitRepository fruitRepository;
+    private final NutritionEnrichmentService nutritionEnrichmentService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxRows;
+
+    public IngredientImportService(FruitRepository fruitRepository,
+                                   NutritionEnrichmentService nutritionEnrichmentService,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${ingredient.import.max-rows:500}") int maxRows) {
+        this.fruitRepository = fruitRepository;
+        this.nutritionEnrichmentService = nutritionEnrichmentService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Import ingredients from CSV text.
+     * Header names match the JSON fields (name, description, imageUrl, pricePerUnit,
+     * category, active, seasonal, fetchNutrition); only name is required.
+     */
+    public IngredientImportResponse importCsv(String csv) {
+        List<Map<String, String>> records = CsvParser.parse(csv);
+        List<IngredientAddRequest> rows = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            rows.add(toRequest(records.get(i), i + 1));
+        }
+        return importIngredients(rows);
+    }
+
+    /**
+     * Import ingredients from a JSON array (same shape as POST /api/admin/ingredient).
+     */
+    public IngredientImportResponse importIngredients(List<IngredientAddRequest> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new RuntimeException("Import file is empty");
+        }
+        if (rows.size() > maxRows) {
+            throw new RuntimeException("Too many rows: " + rows.size() + " (max " + maxRows + ")");
+        }
+        log.info("Importing {} ingredients", rows.size());
+
+        // Step 1: validate rows and build entities (no remote calls yet)
+        Set<String> takenNames = new HashSet<>();
+        fruitRepository.findAllNames().forEach(name -> takenNames.add(normalize(name)));
+
+        List<IngredientImportResponse.RowResult> results = new ArrayList<>(rows.size());
+        List<PendingRow> accepted = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            IngredientAddRequest request = rows.get(i);
+            IngredientImportResponse.RowResult result = IngredientImportResponse.RowResult.builder()
+                    .row(i + 1)
+                    .name(request != null ? request.getName() : null)
+                    .build();
+            results.add(result);
+
+            String error = validate(request);
+            if (error != null) {
+                result.setStatus(IngredientImportResponse.RowStatus.INVALID);
+                result.setMessage(error);
+            } else if (!takenNames.add(normalize(request.getName()))) {
+                result.setStatus(IngredientImportResponse.RowStatus.SKIPPED);
+                result.setMessage("Ingredient with name '" + request.getName().trim() + "' already exists");
+            } else {
+                accepted.add(new PendingRow(result, toIngredient(request),
+                        request.getFetchNutrition() == null || request.getFetchNutrition()));
+            }
+        }
+
+        // Step 2: rows that want nutrition data are saved as PENDING for the enrichment queue
+        markNutrition(accepted);
+
+        // Step 3: persist in JDBC batches, then queue enrichment for the rows that were created
+        if (!accepted.isEmpty()) {
+            insert(accepted);
+            List<Long> pending = accepted.stream()
+                    .filter(row -> row.result().getStatus() == IngredientImportResponse.RowStatus.CREATED)
+                    .filter(row -> row.ingredient().getNutritionStatus() == Fruit.NutritionStatus.PENDING)
+                    .map(row -> row.result().getId())
+                    .filter(Objects::nonNull)
+                    .toList();
+            nutritionEnrichmentService.requestEnrichment(pending);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.FRUIT));
+        }
+
+        int created = 0;
+        int skipped = 0;
+        int duplicate = 0;
+        int invalid = 0;
+        for (IngredientImportResponse.RowResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case SKIPPED -> skipped++;
+                case DUPLICATE -> duplicate++;
+                case INVALID -> invalid++;
+            }
+        }
+        log.info("Imported ingredients: {} created, {} skipped, {} duplicate, {} invalid",
+                created, skipped, duplicate, invalid);
+
+        return IngredientImportResponse.builder()
+                .total(rows.size())
+                .created(created)
+                .skipped(skipped)
+                .duplicate(duplicate)
+                .invalid(invalid)
+                .rows(results)
+                .build();
+    }
+
+    private void markNutrition(List<PendingRow> rows) {
+        boolean configured = nutritionEnrichmentService.isConfigured();
+        for (PendingRow row : rows) {
+            if (!row.fetchNutrition()) {
+                continue;
+            }
+            if (configured) {
+                row.ingredient().setNutritionStatus(Fruit.NutritionStatus.PENDING);
+                row.ingredient().setNutritionUpdatedAt(LocalDateTime.now());
+            } else {
+                row.result().setMessage("USDA API key not configured - nutrition data was not fetched");
+            }
+        }
+    }
+
+    /**
+     * บันทึกทีละ chunk ใน transaction ของตัวเอง - chunk ที่ชนกับ unique name บันทึกใหม่ทีละแถว
+     */
+    private void insert(List<PendingRow> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+            List<PendingRow> chunk = rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size()));
+            try {
+                writeTransaction.executeWithoutResult(status -> insertBatch(chunk));
+            } catch (DataIntegrityViolationException e) {
+                log.info("Import chunk hit a constraint violation ({}), inserting its {} rows one by one",
+                        e.getMostSpecificCause().getMessage(), chunk.size());
+                chunk.forEach(this::insertOne);
+            }
+        }
+    }
+
+    private void insertOne(PendingRow row) {
+        try {
+            writeTransaction.executeWithoutResult(status -> insertBatch(List.of(row)));
+        } catch (DuplicateKeyException e) {
+            row.result().setStatus(IngredientImportResponse.RowStatus.DUPLICATE);
+            row.result().setMessage("Ingredient with name '" + row.ingredient().getName() + "' was created by another import");
+        } catch (DataIntegrityViolationException e) {
+            row.result().setStatus(IngredientImportResponse.RowStatus.INVALID);
+            row.result().setMessage(e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void insertBatch(List<PendingRow> chunk) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, chunk.get(i).ingredient());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < chunk.size(); i++) {
+            PendingRow row = chunk.get(i);
+            if (i < keys.size() && !keys.get(i).isEmpty()) {
+                row.result().setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            }
+            row.result().setStatus(IngredientImportResponse.RowStatus.CREATED);
+            row.result().setNutritionStatus(row.ingredient().getNutritionStatus());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Fruit f) throws SQLException {
+        ps.setString(1, f.getName());
+        ps.setString(2, f.getDescription());
+        ps.setString(3, f.getImageUrl());
+        ps.setBigDecimal(4, f.getPricePerUnit());
+        ps.setString(5, f.getCategory().name());
+        ps.setBoolean(6, f.getActive());
+        ps.setBoolean(7, f.getSeasonal());
+        ps.setBigDecimal(8, f.getCalorie());
+        ps.setBigDecimal(9, f.getProtein());
+        ps.setBigDecimal(10, f.getFiber());
+        ps.setString(11, f.getVitamins());
+        ps.setString(12, f.getMinerals());
+        ps.setString(13, f.getFlavorProfile());
+        ps.setString(14, f.getTasteNotes());
+        ps.setString(15, f.getBestMixPairing());
+        ps.setString(16, f.getAvoidPairing());
+        ps.setString(17, f.getRawUsdaData());
+        ps.setString(18, f.getNutritionStatus().name());
+        ps.setString(19, f.getNutritionError());
+        if (f.getNutritionUpdatedAt() != null) {
+            ps.setTimestamp(20, Timestamp.valueOf(f.getNutritionUpdatedAt()));
+        } else {
+            ps.setNull(20, Types.TIMESTAMP);
+        }
+    }
+
+    private static String validate(IngredientAddRequest request) {
+        if (request == null || request.getName() == null || request.getName().isBlank()) {
+            return "Ingredient name is required";
+        }
+        if (request.getPricePerUnit() != null && request.getPricePerUnit().signum() < 0) {
+            return "Price per unit must not be negative";
+        }
+        return null;
+    }
+
+    private static Fruit toIngredient(IngredientAddRequest request) {
+        Fruit ingredient = new Fruit();
+        ingredient.setName(request.getName().trim());
+        ingredient.setDescription(request.getDescription());
+        ingredient.setImageUrl(request.getImageUrl());
+        ingredient.setPricePerUnit(request.getPricePerUnit() != null ? request.getPricePerUnit() : BigDecimal.ZERO);
+        ingredient.setCategory(request.getCategory() != null ? request.getCategory() : Fruit.Category.ORGANIC_FRUITS);
+        ingredient.setActive(request.getActive() != null ? request.getActive() : true);
+        ingredient.setSeasonal(request.getSeasonal() != null ? request.getSeasonal() : false);
+        return ingredient;
+    }
+
+    /**
+     * Convert one CSV record to the JSON request shape
+     */
+    private static IngredientAddRequest toRequest(Map<String, String> record, int row) {
+        IngredientAddRequest request = new IngredientAddRequest();
+        request.setName(value(record, "name"));
+        request.setDescription(value(record, "description"));
+        request.setImageUrl(value(record, "imageurl", "image_url"));
+        try {
+            String price = value(record, "priceperunit", "price_per_unit", "price");
+            request.setPricePerUnit(price != null ? new BigDecimal(price) : null);
+            String category = value(record, "category");
+            request.setCategory(category != null ? Fruit.Category.valueOf(category.toUpperCase(Locale.ROOT)) : null);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("CSV row " + row + ": " + e.getMessage());
+        }
+        String active = value(record, "active");
+        if (active != null) {
+            request.setActive(Boolean.parseBoolean(active));
+        }
+        String seasonal = value(record, "seasonal");
+        if (seasonal != null) {
+            request.setSeasonal(Boolean.parseBoolean(seasonal));
+        }
+        String fetchNutrition = value(record, "fetchnutrition", "fetch_nutrition");
+        if (fetchNutrition != null) {
+            request.setFetchNutrition(Boolean.parseBoolean(fetchNutrition));
+        }
+        return request;
+    }
+
+    private static String value(Map<String, String> record, String... keys) {
+        for (String key : keys) {
+            String value = record.get(key);
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record PendingRow(IngredientImportResponse.RowResult result, Fruit ingredient, boolean fetchNutrition) {
+    }
+}
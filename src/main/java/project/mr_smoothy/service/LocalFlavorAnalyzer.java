@@ -0,0 +1,432 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.event.CatalogChangedEvent;
+import project.mr_smoothy.repository.FruitRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * วิเคราะห์รสชาติของสมูทตี้ใน process โดยไม่เรียก OpenAI
+ * สร้าง pairing graph จาก best_mix_pairing / avoid_pairing / flavor_profile ของวัตถุดิบทั้งหมด
+ * (สร้างใหม่ทั้งก้อนหลัง commit เมื่อวัตถุดิบเปลี่ยน) แล้วตอบ synergy / cancellation / flavorDescription
+ * ในรูปแบบเดียวกับ {@link OpenAIService#analyzeSmoothyCombination} ผลลัพธ์เหมือนเดิมเสมอสำหรับ input เดียวกัน
+ */
+@Service
+@Slf4j
+public class LocalFlavorAnalyzer {
+
+    private static final int MAX_FLAVORS_IN_DESCRIPTION = 3;
+    private static final Pattern LIST_SEPARATOR = Pattern.compile("\\s*(?:[,/;&]|\\band\\b)\\s*");
+    private static final Pattern NOT_WORD = Pattern.compile("[^\\p{L}\\p{M}\\p{N}]+");
+
+    private final FruitRepository fruitRepository;
+    private final FoodNameTranslator foodNameTranslator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<PairingGraph> current = new AtomicReference<>();
+
+    public LocalFlavorAnalyzer(FruitRepository fruitRepository,
+                               FoodNameTranslator foodNameTranslator,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.fruitRepository = fruitRepository;
+        this.foodNameTranslator = foodNameTranslator;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // database อาจยังไม่พร้อม - จะสร้างใหม่ตอนวิเคราะห์ครั้งแรก
+            log.warn("Could not build pairing graph on startup: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() == CatalogChangedEvent.Type.FRUIT) {
+            rebuild();
+        }
+    }
+
+    /**
+     * วิเคราะห์ส่วนผสม (ปริมาณจริงเป็นกรัม)
+     *
+     * @return Map ที่มี flavorDescription, synergy, cancellation
+     */
+    public Map<String, Object> analyze(List<Portion> portions) {
+        Map<Long, Portion> merged = new LinkedHashMap<>();
+        for (Portion portion : portions) {
+            merged.merge(portion.ingredientId(), portion,
+                    (a, b) -> new Portion(a.ingredientId(), a.name(), a.flavorProfile(), a.grams() + b.grams()));
+        }
+        List<Portion> sorted = new ArrayList<>(merged.values());
+        sorted.sort(Comparator.comparingDouble(Portion::grams).reversed().thenComparing(Portion::name));
+
+        PairingGraph graph = graph();
+        List<String> synergy = new ArrayList<>();
+        List<String> cancellation = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            for (int j = i + 1; j < sorted.size(); j++) {
+                Edge edge = graph.edge(sorted.get(i).ingredientId(), sorted.get(j).ingredientId());
+                if (edge == null) {
+                    continue;
+                }
+                (edge.score() > 0 ? synergy : cancellation).add(edge.reason());
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("flavorDescription", describe(sorted, synergy, cancellation));
+        result.put("synergy", synergy);
+        result.put("cancellation", cancellation);
+        return result;
+    }
+
+    /**
+     * true ถ้า keyword (เช่น "dairy", "citrus") ตรงกับชื่อไทย / อังกฤษ หรือ flavor ของวัตถุดิบแบบทั้งคำ
+     */
+    public boolean mentions(Long ingredientId, String keyword) {
+        return graph().mentions(ingredientId, normalize(keyword));
+    }
+
+    /**
+     * คืน graph ปัจจุบัน (สร้างใหม่ถ้ายังไม่เคยสร้าง)
+     */
+    PairingGraph graph() {
+        PairingGraph graph = current.get();
+        if (graph != null) {
+            return graph;
+        }
+        synchronized (this) {
+            graph = current.get();
+            return graph != null ? graph : rebuild();
+        }
+    }
+
+    /**
+     * อ่านวัตถุดิบทั้งหมดแล้วสลับ graph แบบ atomic
+     */
+    public synchronized PairingGraph rebuild() {
+        List<Node> nodes = readOnlyTransaction.execute(status -> fruitRepository.findAll().stream()
+                .map(this::toNode)
+                .toList());
+        PairingGraph graph = PairingGraph.build(nodes != null ? nodes : List.of());
+        current.set(graph);
+        log.info("Pairing graph rebuilt: {} ingredients, {} pairings", graph.nodeCount(), graph.edgeCount());
+        return graph;
+    }
+
+    private Node toNode(Fruit fruit) {
+        Set<String> aliases = new LinkedHashSet<>();
+        String name = normalize(fruit.getName());
+        aliases.add(name);
+        String english = foodNameTranslator.lookupDictionary(fruit.getName().toLowerCase(Locale.ROOT).trim());
+        if (english != null) {
+            aliases.add(normalize(english));
+        }
+        aliases.remove("");
+        return new Node(fruit.getId(), fruit.getName(), aliases,
+                splitList(fruit.getFlavorProfile()),
+                readPairingList(fruit.getBestMixPairing()),
+                readPairingList(fruit.getAvoidPairing()));
+    }
+
+    /**
+     * อ่าน JSON array ของ pairing (ถ้าไม่ใช่ JSON ที่ถูกต้องจะแยกด้วย comma แทน)
+     */
+    private List<String> readPairingList(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (node.isArray()) {
+                Set<String> tokens = new LinkedHashSet<>();
+                node.forEach(item -> tokens.add(normalize(item.asText())));
+                tokens.remove("");
+                return List.copyOf(tokens);
+            }
+        } catch (Exception e) {
+            // ข้อมูลเก่าอาจเป็นข้อความธรรมดา
+        }
+        return splitList(json.replaceAll("[\\[\\]\"]", ""));
+    }
+
+    private static List<String> splitList(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String part : LIST_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            String token = normalize(part);
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * ตัวพิมพ์เล็ก ตัดเครื่องหมาย และแปลงคำสุดท้ายเป็นเอกพจน์อย่างง่าย (strawberries -> strawberry)
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String cleaned = NOT_WORD.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        if (cleaned.isEmpty()) {
+            return cleaned;
+        }
+        int lastSpace = cleaned.lastIndexOf(' ');
+        String head = cleaned.substring(0, lastSpace + 1);
+        String last = cleaned.substring(lastSpace + 1);
+        if (last.length() > 4 && last.endsWith("ies")) {
+            last = last.substring(0, last.length() - 3) + "y";
+        } else if (last.length() > 4 && (last.endsWith("oes") || last.endsWith("ches") || last.endsWith("shes"))) {
+            last = last.substring(0, last.length() - 2);
+        } else if (last.length() > 3 && last.endsWith("s") && !last.endsWith("ss")) {
+            last = last.substring(0, last.length() - 1);
+        }
+        return head + last;
+    }
+
+    private static String describe(List<Portion> portions, List<String> synergy, List<String> cancellation) {
+        if (portions.isEmpty()) {
+            return "Flavor analysis is not available right now.";
+        }
+
+        Map<String, Double> flavorWeights = new HashMap<>();
+        for (Portion portion : portions) {
+            for (String flavor : splitList(portion.flavorProfile())) {
+                flavorWeights.merge(flavor, Math.max(portion.grams(), 1), Double::sum);
+            }
+        }
+        List<String> flavors = flavorWeights.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_FLAVORS_IN_DESCRIPTION)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        StringBuilder description = new StringBuilder();
+        description.append(flavors.isEmpty() ? "A smoothy" : "A " + joinWords(flavors) + " smoothy");
+        description.append(" built on ").append(portions.get(0).name());
+        List<String> others = portions.subList(1, portions.size()).stream().map(Portion::name).toList();
+        if (others.size() > 3) {
+            description.append(" with ").append(String.join(", ", others.subList(0, 3)))
+                    .append(" and ").append(others.size() - 3).append(" more");
+        } else if (!others.isEmpty()) {
+            description.append(" with ").append(joinWords(others));
+        }
+        description.append('.');
+
+        if (!synergy.isEmpty() && cancellation.isEmpty()) {
+            description.append(" The ingredients complement each other well.");
+        } else if (!synergy.isEmpty()) {
+            description.append(" Mostly well matched, with a few pairings to watch.");
+        } else if (!cancellation.isEmpty()) {
+            description.append(" Some ingredients may clash - see the pairing notes.");
+        }
+        return description.toString();
+    }
+
+    private static String joinWords(List<String> words) {
+        if (words.size() <= 1) {
+            return String.join("", words);
+        }
+        return String.join(", ", words.subList(0, words.size() - 1)) + " and " + words.get(words.size() - 1);
+    }
+
+    /**
+     * วัตถุดิบหนึ่งรายการในสูตร (ปริมาณเป็นกรัม)
+     */
+    public record Portion(Long ingredientId, String name, String flavorProfile, double grams) {
+    }
+
+    /**
+     * ข้อมูล pairing ของวัตถุดิบหนึ่งรายการ (normalize แล้ว)
+     */
+    record Node(Long id, String name, Set<String> aliases, List<String> flavors,
+                List<String> goodWith, List<String> avoidWith) {
+    }
+
+    /**
+     * ความเข้ากันของวัตถุดิบคู่หนึ่ง: score > 0 = synergy, score < 0 = cancellation
+     */
+    record Edge(int score, String reason) {
+    }
+
+    /**
+     * token ใน pairing list ตรงกับวัตถุดิบแบบไหน (ชื่อ หรือ flavor)
+     */
+    private record Match(boolean byName, String flavor) {
+    }
+
+    /**
+     * Graph ที่ไม่เปลี่ยนแปลงหลังสร้าง - edge เก็บเฉพาะคู่ที่มีความสัมพันธ์ (key = id น้อยกว่าก่อน)
+     */
+    static final class PairingGraph {
+        private final Map<Long, Map<Long, Edge>> edges;
+        private final Map<Long, Node> nodes;
+        private final int edgeCount;
+
+        private PairingGraph(Map<Long, Map<Long, Edge>> edges, Map<Long, Node> nodes, int edgeCount) {
+            this.edges = edges;
+            this.nodes = nodes;
+            this.edgeCount = edgeCount;
+        }
+
+        static PairingGraph build(List<Node> nodes) {
+            Map<Long, Map<Long, Edge>> edges = new HashMap<>();
+            int edgeCount = 0;
+            for (int i = 0; i < nodes.size(); i++) {
+                for (int j = i + 1; j < nodes.size(); j++) {
+                    Node a = nodes.get(i);
+                    Node b = nodes.get(j);
+                    if (a.id() == null || b.id() == null || a.id().equals(b.id())) {
+                        continue;
+                    }
+                    Edge edge = relate(a, b);
+                    if (edge != null) {
+                        Node low = a.id() < b.id() ? a : b;
+                        Node high = low == a ? b : a;
+                        edges.computeIfAbsent(low.id(), k -> new HashMap<>()).put(high.id(), edge);
+                        edgeCount++;
+                    }
+                }
+            }
+            edges.replaceAll((id, map) -> Map.copyOf(map));
+            Map<Long, Node> byId = new HashMap<>();
+            nodes.stream().filter(node -> node.id() != null).forEach(node -> byId.put(node.id(), node));
+            return new PairingGraph(Map.copyOf(edges), Map.copyOf(byId), edgeCount);
+        }
+
+        Edge edge(Long a, Long b) {
+            if (a == null || b == null || a.equals(b)) {
+                return null;
+            }
+            Map<Long, Edge> row = edges.get(Math.min(a, b));
+            return row != null ? row.get(Math.max(a, b)) : null;
+        }
+
+        boolean mentions(Long id, String keyword) {
+            Node node = id != null ? nodes.get(id) : null;
+            if (node == null || keyword.isEmpty()) {
+                return false;
+            }
+            return node.aliases().stream().anyMatch(alias -> containsWord(alias, keyword))
+                    || node.flavors().stream().anyMatch(flavor -> containsWord(flavor, keyword));
+        }
+
+        int nodeCount() {
+            return nodes.size();
+        }
+
+        int edgeCount() {
+            return edgeCount;
+        }
+
+        private static Edge relate(Node a, Node b) {
+            Match goodAB = match(a.goodWith(), b);
+            Match goodBA = match(b.goodWith(), a);
+            Match avoidAB = match(a.avoidWith(), b);
+            Match avoidBA = match(b.avoidWith(), a);
+            int score = (goodAB != null ? 1 : 0) + (goodBA != null ? 1 : 0)
+                    - (avoidAB != null ? 1 : 0) - (avoidBA != null ? 1 : 0);
+
+            if (score > 0) {
+                if (goodAB != null && goodBA != null && goodAB.byName() && goodBA.byName()) {
+                    return new Edge(score, a.name() + " and " + b.name()
+                            + " are a classic match - each lists the other as a best pairing");
+                }
+                return prefer(goodAB, goodBA)
+                        ? new Edge(score, goodReason(a, b, goodAB))
+                        : new Edge(score, goodReason(b, a, goodBA));
+            }
+            if (score < 0) {
+                if (avoidAB != null && avoidBA != null && avoidAB.byName() && avoidBA.byName()) {
+                    return new Edge(score, a.name() + " and " + b.name()
+                            + " are not recommended together - each lists the other to avoid");
+                }
+                return prefer(avoidAB, avoidBA)
+                        ? new Edge(score, avoidReason(a, b, avoidAB))
+                        : new Edge(score, avoidReason(b, a, avoidBA));
+            }
+            return null;
+        }
+
+        /**
+         * true ถ้าควรใช้ first เป็นเหตุผล (มีค่า และไม่แพ้ second ที่ตรงด้วยชื่อ)
+         */
+        private static boolean prefer(Match first, Match second) {
+            return first != null && (first.byName() || second == null || !second.byName());
+        }
+
+        private static String goodReason(Node from, Node to, Match match) {
+            return match.byName()
+                    ? from.name() + " pairs well with " + to.name()
+                    : from.name() + " pairs well with " + match.flavor() + " ingredients like " + to.name();
+        }
+
+        private static String avoidReason(Node from, Node to, Match match) {
+            return match.byName()
+                    ? from.name() + " is best not mixed with " + to.name()
+                    : from.name() + " does not go well with " + match.flavor() + " ingredients such as " + to.name();
+        }
+
+        /**
+         * ชื่อตรงกัน (ทั้งคำ) มาก่อน flavor ตรงกัน
+         */
+        private static Match match(List<String> tokens, Node target) {
+            Match flavorMatch = null;
+            for (String token : tokens) {
+                for (String alias : target.aliases()) {
+                    if (containsWord(alias, token) || (alias.length() >= 3 && containsWord(token, alias))) {
+                        return new Match(true, null);
+                    }
+                }
+                if (flavorMatch == null) {
+                    for (String flavor : target.flavors()) {
+                        if (containsWord(flavor, token)) {
+                            flavorMatch = new Match(false, token);
+                            break;
+                        }
+                    }
+                }
+            }
+            return flavorMatch;
+        }
+
+        private static boolean containsWord(String text, String word) {
+            return !word.isEmpty() && (" " + text + " ").contains(" " + word + " ");
+        }
+    }
+}
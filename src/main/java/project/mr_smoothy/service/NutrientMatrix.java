@@ -0,0 +1,294 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.event.CatalogChangedEvent;
+import project.mr_smoothy.repository.FruitRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * ตารางโภชนาการของวัตถุดิบทั้งหมดใน memory: หนึ่ง double[] ต่อวัตถุดิบ (ต่อ 100 กรัม)
+ * คอลัมน์คือ calorie, protein, fiber ตามด้วยวิตามินและแร่ธาตุทุกตัวที่ {@link USDADataParser} ดึงได้
+ * การรวมโภชนาการของสูตรจึงเป็นแค่ multiply-add ต่อคอลัมน์โดยไม่แตะ database
+ * สร้างใหม่ทั้งก้อนและสลับแบบ atomic หลัง commit เมื่อวัตถุดิบเปลี่ยน
+ */
+@Service
+@Slf4j
+public class NutrientMatrix {
+
+    public static final List<String> VITAMINS = List.of(
+            "vitaminC", "vitaminA", "vitaminE", "vitaminK", "vitaminB1",
+            "vitaminB2", "vitaminB3", "vitaminB6", "folate", "vitaminB12");
+    public static final List<String> MINERALS = List.of(
+            "calcium", "iron", "potassium", "sodium", "zinc",
+            "magnesium", "phosphorus", "copper", "manganese", "selenium");
+
+    public static final int CALORIE = 0;
+    public static final int PROTEIN = 1;
+    public static final int FIBER = 2;
+    private static final int VITAMIN_OFFSET = 3;
+    private static final int MINERAL_OFFSET = VITAMIN_OFFSET + VITAMINS.size();
+    public static final int WIDTH = MINERAL_OFFSET + MINERALS.size();
+
+    private final FruitRepository fruitRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public NutrientMatrix(FruitRepository fruitRepository,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager) {
+        this.fruitRepository = fruitRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CatalogChangedEvent.ORDER_SOURCE)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // database อาจยังไม่พร้อม - จะสร้างใหม่ตอนมี request แรก
+            log.warn("Could not build nutrient matrix on startup: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(CatalogChangedEvent.ORDER_SOURCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() == CatalogChangedEvent.Type.FRUIT) {
+            rebuild();
+        }
+    }
+
+    /**
+     * คืน snapshot ปัจจุบัน (สร้างใหม่ถ้ายังไม่เคยสร้าง)
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            return snapshot != null ? snapshot : rebuild();
+        }
+    }
+
+    /**
+     * อ่านวัตถุดิบทั้งหมดใน transaction เดียวแล้วสลับ snapshot
+     */
+    public synchronized Snapshot rebuild() {
+        List<Fruit> fruits = readOnlyTransaction.execute(status -> fruitRepository.findAll());
+        Snapshot snapshot = build(fruits != null ? fruits : List.of());
+        current.set(snapshot);
+        log.info("Nutrient matrix rebuilt: {} ingredients x {} nutrients", snapshot.size(), WIDTH);
+        return snapshot;
+    }
+
+    private Snapshot build(List<Fruit> fruits) {
+        int n = fruits.size();
+        Map<Long, Integer> index = new HashMap<>(n * 2);
+        double[][] rows = new double[n][];
+        boolean[] hasCore = new boolean[n];
+        String[] names = new String[n];
+        String[] flavorProfiles = new String[n];
+        for (int i = 0; i < n; i++) {
+            Fruit fruit = fruits.get(i);
+            double[] row = new double[WIDTH];
+            row[CALORIE] = toDouble(fruit.getCalorie());
+            row[PROTEIN] = toDouble(fruit.getProtein());
+            row[FIBER] = toDouble(fruit.getFiber());
+            readJson(fruit.getVitamins(), VITAMINS, row, VITAMIN_OFFSET);
+            readJson(fruit.getMinerals(), MINERALS, row, MINERAL_OFFSET);
+
+            index.put(fruit.getId(), i);
+            rows[i] = row;
+            hasCore[i] = fruit.getCalorie() != null && fruit.getProtein() != null && fruit.getFiber() != null;
+            names[i] = fruit.getName();
+            flavorProfiles[i] = fruit.getFlavorProfile();
+        }
+        return new Snapshot(Map.copyOf(index), rows, hasCore, names, flavorProfiles);
+    }
+
+    private void readJson(String json, List<String> keys, double[] row, int offset) {
+        if (json == null || json.isBlank()) {
+            return;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            for (int k = 0; k < keys.size(); k++) {
+                JsonNode value = node.get(keys.get(k));
+                if (value != null && value.isNumber()) {
+                    row[offset + k] = value.asDouble();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring malformed nutrient JSON: {}", e.getMessage());
+        }
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0;
+    }
+
+    /**
+     * วิตามินรวม (เฉพาะตัวที่มีค่า) ตามลำดับ {@link #VITAMINS}
+     */
+    public static Map<String, BigDecimal> vitamins(double[] totals) {
+        return named(totals, VITAMINS, VITAMIN_OFFSET);
+    }
+
+    /**
+     * แร่ธาตุรวม (เฉพาะตัวที่มีค่า) ตามลำดับ {@link #MINERALS}
+     */
+    public static Map<String, BigDecimal> minerals(double[] totals) {
+        return named(totals, MINERALS, MINERAL_OFFSET);
+    }
+
+    /**
+     * ปัดเป็นทศนิยม 2 ตำแหน่งเหมือนคอลัมน์ใน database
+     */
+    public static BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static Map<String, BigDecimal> named(double[] totals, List<String> keys, int offset) {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int k = 0; k < keys.size(); k++) {
+            double value = totals[offset + k];
+            if (value > 0) {
+                // หน่วย mg / µg มีค่าเล็ก จึงเก็บทศนิยม 3 ตำแหน่ง
+                result.put(keys.get(k), BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ตารางที่ไม่เปลี่ยนแปลงหลังสร้าง (thread-safe)
+     */
+    public static final class Snapshot {
+        private final Map<Long, Integer> index;
+        private final double[][] rows;
+        private final boolean[] hasCore;
+        private final String[] names;
+        private final String[] flavorProfiles;
+
+        private Snapshot(Map<Long, Integer> index, double[][] rows, boolean[] hasCore,
+                         String[] names, String[] flavorProfiles) {
+            this.index = index;
+            this.rows = rows;
+            this.hasCore = hasCore;
+            this.names = names;
+            this.flavorProfiles = flavorProfiles;
+        }
+
+        public int size() {
+            return rows.length;
+        }
+
+        /**
+         * @return หมายเลขแถวของวัตถุดิบ หรือ -1 ถ้าไม่มี
+         */
+        public int rowOf(Long ingredientId) {
+            Integer row = ingredientId != null ? index.get(ingredientId) : null;
+            return row != null ? row : -1;
+        }
+
+        /**
+         * หมายเลขแถวของทุก id ตามลำดับ
+         * @throws RuntimeException ถ้ามี id ที่ไม่พบ โดยระบุ id ที่ไม่พบทั้งหมด (ข้อความเดียวกับ {@link CatalogIdResolver})
+         */
+        public int[] requireRows(List<Long> ingredientIds) {
+            int[] result = new int[ingredientIds.size()];
+            Set<Long> missing = new LinkedHashSet<>();
+            for (int i = 0; i < result.length; i++) {
+                result[i] = rowOf(ingredientIds.get(i));
+                if (result[i] < 0) {
+                    missing.add(ingredientIds.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new RuntimeException("Fruit not found: "
+                        + missing.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+            }
+            return result;
+        }
+
+        /**
+         * true ถ้าวัตถุดิบมี calorie, protein และ fiber ครบ
+         */
+        public boolean hasCoreNutrition(int row) {
+            return hasCore[row];
+        }
+
+        public String name(int row) {
+            return names[row];
+        }
+
+        public String flavorProfile(int row) {
+            return flavorProfiles[row];
+        }
+
+        /**
+         * ค่าต่อ 100 กรัมของคอลัมน์หนึ่ง
+         */
+        public double per100g(int row, int nutrient) {
+            return rows[row][nutrient];
+        }
+
+        /**
+         * totals += แถว * (grams / 100)
+         */
+        public void addTo(double[] totals, int row, double grams) {
+            double[] values = rows[row];
+            double factor = grams / 100.0;
+            for (int k = 0; k < WIDTH; k++) {
+                totals[k] += values[k] * factor;
+            }
+        }
+
+        /**
+         * โภชนาการรวมของหลายวัตถุดิบ (ids และ grams ลำดับเดียวกัน, id ที่ไม่มีจะถูกข้าม)
+         */
+        public double[] total(Collection<Long> ingredientIds, double[] grams) {
+            double[] totals = new double[WIDTH];
+            int i = 0;
+            for (Long id : ingredientIds) {
+                int row = rowOf(id);
+                if (row >= 0) {
+                    addTo(totals, row, grams[i]);
+                }
+                i++;
+            }
+            return totals;
+        }
+    }
+}
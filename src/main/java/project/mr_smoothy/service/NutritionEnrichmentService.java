@@ -0,0 +1,574 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.dto.response.IngredientNutritionStatusResponse;
+import project.mr_smoothy.dto.response.NutritionEnrichmentStatusResponse;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.event.CatalogChangedEvent;
+import project.mr_smoothy.repository.FruitRepository;
+import project.mr_smoothy.util.ThreadFactories;
+import project.mr_smoothy.util.UpstreamGuard;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * คิวดึงข้อมูลโภชนาการ (USDA + flavor จาก OpenAI) แบบ background
+ * สถานะงานเก็บไว้ที่ ingredients.nutrition_status จึงกู้งานที่ค้างได้หลัง restart
+ * worker จำนวนจำกัดดึง id จากคิวทีละ batch ค้นหาแบบขนานผ่าน {@link USDABulkFetcher} แล้วขอรายละเอียดจาก USDA ในครั้งเดียว (GET /foods)
+ * การเรียก USDA / OpenAI ทำนอก transaction ทั้งหมด - เขียนผลลัพธ์ใน transaction สั้นๆ ต่อวัตถุดิบ
+ */
+@Service
+@Slf4j
+public class NutritionEnrichmentService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final Duration CATALOG_EVENT_MAX_DELAY = Duration.ofSeconds(30);
+
+    private final FruitRepository fruitRepository;
+    private final USDAService usdaService;
+    private final USDABulkFetcher usdaBulkFetcher;
+    private final USDADataParser usdaDataParser;
+    private final OpenAIService openAIService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate writeTransaction;
+
+    @Value("${usda.api.key:}")
+    private String usdaApiKey;
+
+    private final int workerCount;
+    private final int batchSize;
+    private final BlockingQueue<Long> queue;
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    /**
+     * มีงาน PENDING ที่ใส่คิวไม่ได้เพราะคิวเต็ม - worker จะอ่านจาก database อีกครั้งเมื่อคิวว่าง
+     */
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    /**
+     * งานที่ถูกเลื่อนเพราะ USDA circuit เปิดอยู่ (id -> จำนวนครั้งที่วงจรปิดตอนถูกปฏิเสธ)
+     * worker จะใส่คิวใหม่เมื่อวงจรกลับมาปิด (เฉพาะ id ที่ยังเป็น PENDING)
+     */
+    private final Map<Long, Long> deferredIds = new ConcurrentHashMap<>();
+    /**
+     * เวลา (System.nanoTime) ที่มีวัตถุดิบเปลี่ยนครั้งแรกแต่ยังไม่ได้แจ้ง CatalogChangedEvent (0 = ไม่มี)
+     * รวมหลาย batch เป็น event เดียว เพราะแต่ละ event ทำให้ snapshot ทั้งหมด rebuild ใหม่
+     */
+    private final AtomicLong catalogChangedSince = new AtomicLong();
+    private volatile boolean running = true;
+
+    public NutritionEnrichmentService(FruitRepository fruitRepository,
+                                      USDAService usdaService,
+                                      USDABulkFetcher usdaBulkFetcher,
+                                      USDADataParser usdaDataParser,
+                                      OpenAIService openAIService,
+                                      ObjectMapper objectMapper,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${nutrition.enrichment.workers:2}") int workerCount,
+                                      @Value("${nutrition.enrichment.batch-size:20}") int batchSize,
+                                      @Value("${nutrition.enrichment.queue-capacity:1000}") int queueCapacity,
+                                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.fruitRepository = fruitRepository;
+        this.usdaService = usdaService;
+        this.usdaBulkFetcher = usdaBulkFetcher;
+        this.usdaDataParser = usdaDataParser;
+        this.openAIService = openAIService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.workerCount = Math.max(1, workerCount);
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.workers = Executors.newFixedThreadPool(this.workerCount,
+                ThreadFactories.named("nutrition-enrichment", virtualThreads));
+    }
+
+    /**
+     * กู้งานที่ค้างจาก process ก่อนหน้า (PENDING / IN_PROGRESS) แล้วเริ่ม worker
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int recovered = recoverUnfinished();
+            if (recovered > 0) {
+                log.info("Recovered {} unfinished nutrition enrichment jobs", recovered);
+            }
+        } catch (Exception e) {
+            log.warn("Could not recover nutrition enrichment jobs on startup: {}", e.getMessage());
+        }
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::workerLoop);
+        }
+        log.info("Nutrition enrichment started with {} workers (batch size {})", workerCount, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // งานที่ทำค้างอยู่ยังเป็น IN_PROGRESS ใน database และจะถูกกู้เมื่อ start ครั้งถัดไป
+        running = false;
+        workers.shutdownNow();
+    }
+
+    /**
+     * ตรวจว่าตั้งค่า USDA API key แล้วหรือยัง
+     */
+    public boolean isConfigured() {
+        return usdaApiKey != null && !usdaApiKey.isBlank() && !usdaApiKey.equals("your_usda_api_key_here");
+    }
+
+    /**
+     * ทำเครื่องหมายวัตถุดิบเป็น PENDING ใน transaction ปัจจุบัน แล้วใส่คิวหลัง commit
+     * (worker จะไม่เห็นแถวที่ยังไม่ commit)
+     *
+     * @return false ถ้ายังไม่ได้ตั้งค่า USDA API key (สถานะไม่เปลี่ยน)
+     */
+    public boolean requestEnrichment(Fruit ingredient) {
+        if (!isConfigured()) {
+            log.info("USDA API key not configured. Skipping nutrition data fetch for: {}. " +
+                    "To enable automatic nutrition data fetching, set USDA_API_KEY in docker-compose.yaml",
+                    ingredient.getName());
+            return false;
+        }
+        ingredient.setNutritionStatus(Fruit.NutritionStatus.PENDING);
+        ingredient.setNutritionError(null);
+        ingredient.setNutritionUpdatedAt(LocalDateTime.now());
+        Fruit saved = fruitRepository.save(ingredient);
+        requestEnrichment(List.of(saved.getId()));
+        return true;
+    }
+
+    /**
+     * ใส่คิววัตถุดิบที่ผู้เรียกบันทึกเป็น PENDING ไว้แล้ว (เช่น batch insert ของการนำเข้า)
+     * ถ้าอยู่ใน transaction จะใส่คิวหลัง commit
+     */
+    public void requestEnrichment(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(NutritionEnrichmentService.this::enqueue);
+                }
+            });
+        } else {
+            ids.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * สรุปสถานะงานทั้งหมด (จำนวนวัตถุดิบตามสถานะ + ขนาดคิวปัจจุบัน)
+     */
+    public NutritionEnrichmentStatusResponse getStatus() {
+        Map<Fruit.NutritionStatus, Long> counts = new EnumMap<>(Fruit.NutritionStatus.class);
+        for (Fruit.NutritionStatus status : Fruit.NutritionStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (FruitRepository.NutritionStatusCount row : fruitRepository.countByNutritionStatus()) {
+            // แถวเก่าที่ยังไม่มีสถานะถือว่าเป็น NONE
+            Fruit.NutritionStatus status = row.getStatus() != null ? row.getStatus() : Fruit.NutritionStatus.NONE;
+            counts.merge(status, row.getTotal(), Long::sum);
+        }
+        return NutritionEnrichmentStatusResponse.builder()
+                .queued(queue.size())
+                .workers(workerCount)
+                .activeWorkers(activeWorkers.get())
+                .batchSize(batchSize)
+                .counts(counts)
+                .build();
+    }
+
+    /**
+     * สถานะงานของวัตถุดิบหนึ่งรายการ
+     */
+    public IngredientNutritionStatusResponse getStatus(Long ingredientId) {
+        Fruit ingredient = fruitRepository.findById(ingredientId)
+                .orElseThrow(() -> new RuntimeException("Ingredient not found with id: " + ingredientId));
+        return IngredientNutritionStatusResponse.builder()
+                .id(ingredient.getId())
+                .name(ingredient.getName())
+                .status(ingredient.getNutritionStatus() != null
+                        ? ingredient.getNutritionStatus()
+                        : Fruit.NutritionStatus.NONE)
+                .error(ingredient.getNutritionError())
+                .updatedAt(ingredient.getNutritionUpdatedAt())
+                .hasNutritionData(ingredient.getCalorie() != null)
+                .build();
+    }
+
+    private void enqueue(Long id) {
+        if (!queuedIds.add(id)) {
+            return;
+        }
+        if (!queue.offer(id)) {
+            queuedIds.remove(id);
+            overflowed.set(true);
+            log.warn("Nutrition enrichment queue is full; ingredient {} stays PENDING until the queue drains", id);
+        }
+    }
+
+    /**
+     * ตอน start เท่านั้น: ยังไม่มี worker ทำงาน แถว IN_PROGRESS จึงเป็นงานค้างของ process ก่อนหน้า
+     */
+    private int recoverUnfinished() {
+        List<Long> ids = fruitRepository.findIdsByNutritionStatusIn(
+                List.of(Fruit.NutritionStatus.PENDING, Fruit.NutritionStatus.IN_PROGRESS));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        writeTransaction.executeWithoutResult(status ->
+                fruitRepository.updateNutritionStatus(ids, Fruit.NutritionStatus.PENDING, LocalDateTime.now()));
+        ids.forEach(this::enqueue);
+        return ids.size();
+    }
+
+    /**
+     * ระหว่างทำงาน: ใส่คิวเฉพาะแถว PENDING - แถว IN_PROGRESS เป็นของ worker ตัวอื่นที่กำลังทำอยู่
+     */
+    private void requeuePending() {
+        fruitRepository.findIdsByNutritionStatusIn(List.of(Fruit.NutritionStatus.PENDING)).forEach(this::enqueue);
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    if (overflowed.compareAndSet(true, false)) {
+                        requeuePending();
+                    }
+                    requeueDeferred();
+                    publishCatalogChange(true);
+                    continue;
+                }
+                List<Long> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batch.forEach(queuedIds::remove);
+
+                activeWorkers.incrementAndGet();
+                try {
+                    processBatch(batch);
+                } finally {
+                    activeWorkers.decrementAndGet();
+                }
+                publishCatalogChange(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // worker ต้องไม่ตาย - processBatch ปิดงานที่ claim ไว้เป็น FAILED แล้ว
+                log.error("Nutrition enrichment batch failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * ประมวลผลหนึ่ง batch:
+     * 1. claim แถวที่ยังเป็น PENDING ให้เป็น IN_PROGRESS (transaction สั้น)
+     * 2. ค้นหา fdcId ของแต่ละวัตถุดิบ แล้วขอรายละเอียดทั้ง batch จาก USDA ครั้งเดียว
+     * 3. parse โภชนาการ + ขอ flavor จาก OpenAI แล้วบันทึกผลทีละรายการ
+     */
+    private void processBatch(List<Long> ids) {
+        Map<Long, String> names = claim(ids);
+        if (names.isEmpty()) {
+            return;
+        }
+        try {
+            enrich(names);
+        } catch (RuntimeException e) {
+            // แถวที่ยังเป็น IN_PROGRESS จะค้างตลอด (admin ขอดึงใหม่ไม่ได้) - ปิดเป็น FAILED ให้ขอใหม่ได้
+            failUnfinished(names.keySet(), e.getMessage());
+            throw e;
+        }
+    }
+
+    private void enrich(Map<Long, String> names) {
+        log.info("Enriching nutrition data for {} ingredients", names.size());
+
+        // ค้นหา fdcId แบบขนานแล้วขอรายละเอียดทั้ง batch ครั้งเดียว
+        Map<String, USDABulkFetcher.Result> fetched = usdaBulkFetcher.fetch(names.values());
+
+        List<Long> found = new ArrayList<>();
+        List<Map<String, Object>> nutrition = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            Long id = entry.getKey();
+            String name = entry.getValue();
+            USDABulkFetcher.Result result = fetched.get(name);
+            if (result.rejection() != null) {
+                defer(id, result.rejection());
+                continue;
+            }
+            if (result.status() != Fruit.NutritionStatus.DONE) {
+                log.warn("ไม่สามารถค้นหาข้อมูลโภชนาการสำหรับ: {} เนื่องจาก: {}", name, result.error());
+                finish(id, result.status(), result.error(), null, null);
+                continue;
+            }
+            try {
+                // Parse nutrition data directly from USDA (no AI needed - saves tokens!)
+                Map<String, Object> nutritionData = usdaDataParser.parseUSDAData(name, result.details());
+                if (nutritionData.get("calorie") == null) {
+                    finish(id, Fruit.NutritionStatus.NOT_FOUND,
+                            "ไม่สามารถดึงข้อมูลโภชนาการพื้นฐาน (แคลอรี่) สำหรับ: " + name, null, null);
+                    continue;
+                }
+                found.add(id);
+                nutrition.add(nutritionData);
+            } catch (Exception e) {
+                log.warn("Could not enrich nutrition data for {}: {}", name, e.getMessage());
+                finish(id, Fruit.NutritionStatus.FAILED, e.getMessage(), null, null);
+            }
+        }
+
+        // Flavor profiles from OpenAI, on the same bounded pool as the USDA searches
+        List<Integer> indexes = IntStream.range(0, found.size()).boxed().toList();
+        List<Map<String, Object>> flavors = usdaBulkFetcher.mapConcurrently(indexes,
+                i -> fetchFlavorData(names.get(found.get(i)), nutrition.get(i)));
+
+        boolean changed = false;
+        for (int i = 0; i < found.size(); i++) {
+            Long id = found.get(i);
+            Map<String, Object> processedData = new HashMap<>(nutrition.get(i));
+            processedData.putAll(flavors.get(i));
+            changed |= finish(id, Fruit.NutritionStatus.DONE, null, processedData,
+                    fetched.get(names.get(id)).details());
+        }
+
+        if (changed) {
+            catalogChangedSince.compareAndSet(0, Math.max(1, System.nanoTime()));
+        }
+    }
+
+    /**
+     * แจ้ง CatalogChangedEvent ครั้งเดียวเมื่อคิวว่างและไม่มี worker ทำงานอยู่
+     * หรือเมื่อรอมานานเกิน CATALOG_EVENT_MAX_DELAY (กรณีมีงานเข้ามาต่อเนื่องจนคิวไม่เคยว่าง)
+     */
+    private void publishCatalogChange(boolean idle) {
+        long since = catalogChangedSince.get();
+        if (since == 0) {
+            return;
+        }
+        boolean drained = idle && queue.isEmpty() && activeWorkers.get() == 0;
+        if (!drained && System.nanoTime() - since < CATALOG_EVENT_MAX_DELAY.toNanos()) {
+            return;
+        }
+        if (catalogChangedSince.compareAndSet(since, 0)) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.FRUIT));
+        }
+    }
+
+    private Map<Long, String> claim(List<Long> ids) {
+        Map<Long, String> names = writeTransaction.execute(status -> {
+            Map<Long, String> claimed = new LinkedHashMap<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (Fruit ingredient : fruitRepository.findAllById(ids)) {
+                if (ingredient.getNutritionStatus() != Fruit.NutritionStatus.PENDING) {
+                    continue;
+                }
+                ingredient.setNutritionStatus(Fruit.NutritionStatus.IN_PROGRESS);
+                ingredient.setNutritionUpdatedAt(now);
+                claimed.put(ingredient.getId(), ingredient.getName());
+            }
+            return claimed;
+        });
+        return names != null ? names : Map.of();
+    }
+
+    private void failUnfinished(Collection<Long> ids, String error) {
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (Fruit ingredient : fruitRepository.findAllById(ids)) {
+                    if (ingredient.getNutritionStatus() == Fruit.NutritionStatus.IN_PROGRESS) {
+                        ingredient.setNutritionStatus(Fruit.NutritionStatus.FAILED);
+                        ingredient.setNutritionError(truncate(error));
+                        ingredient.setNutritionUpdatedAt(now);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Could not mark failed nutrition enrichment batch {}: {}", ids, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * USDA ปฏิเสธการเรียก - คืนงานเป็น PENDING
+     * bulkhead เต็ม: ใส่คิวต่อท้ายทันที (การรอ slot ของ bulkhead หน่วงการลองใหม่อยู่แล้ว)
+     * circuit เปิด: เก็บ id ไว้จนกว่าวงจรจะกลับมาปิด
+     */
+    private void defer(Long id, Exception e) {
+        finish(id, Fruit.NutritionStatus.PENDING, e.getMessage(), null, null);
+        UpstreamGuard.RejectedException rejection = UpstreamGuard.findRejection(e);
+        if (rejection != null && rejection.isBulkheadFull()) {
+            enqueue(id);
+        } else {
+            deferredIds.put(id, rejection != null ? rejection.getClosedGeneration() : usdaService.getBreakerClosings());
+        }
+    }
+
+    /**
+     * ใส่คิวงานที่ถูกเลื่อนไว้ก่อนที่ USDA circuit จะกลับมาปิด - เฉพาะแถวที่ยังเป็น PENDING
+     * (แถวที่ admin ขอใหม่หรือถูก worker อื่น claim ไปแล้วไม่ต้องทำซ้ำ)
+     * ระหว่างที่วงจรยังไม่ปิดจะปล่อยออกไปทีละรายการเป็น half-open probe เท่านั้น
+     */
+    private void requeueDeferred() {
+        if (deferredIds.isEmpty()) {
+            return;
+        }
+        long closings = usdaService.getBreakerClosings();
+        List<Long> ready = new ArrayList<>();
+        deferredIds.forEach((id, generation) -> {
+            if (generation < closings) {
+                ready.add(id);
+            }
+        });
+        if (ready.isEmpty()) {
+            // วงจรยังไม่ปิด - ถ้าพ้นเวลา open แล้วส่งงานทีละรายการเป็น probe ให้วงจรเปลี่ยนสถานะได้
+            if (!usdaService.isAvailable()) {
+                return;
+            }
+            deferredIds.keySet().stream().min(Long::compare).ifPresent(ready::add);
+        }
+        ready.forEach(deferredIds::remove);
+        for (Fruit ingredient : fruitRepository.findAllById(ready)) {
+            if (ingredient.getNutritionStatus() == Fruit.NutritionStatus.PENDING) {
+                enqueue(ingredient.getId());
+            }
+        }
+    }
+
+    /**
+     * Flavor profile and pairing suggestions from OpenAI (optional, uses minimal tokens)
+     */
+    private Map<String, Object> fetchFlavorData(String name, Map<String, Object> nutritionData) {
+        try {
+            String flavorPrompt = openAIService.buildFlavorAnalysisPrompt(name, nutritionData);
+            String flavorResponse = openAIService.callOpenAI(flavorPrompt);
+            Map<String, Object> flavorData = openAIService.parseOpenAIResponse(flavorResponse);
+            log.info("Successfully generated flavor profile for: {}", name);
+            return flavorData;
+        } catch (Exception e) {
+            log.warn("Failed to generate flavor profile for {}: {}. Continuing without flavor data.",
+                    name, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * บันทึกผลของวัตถุดิบหนึ่งรายการใน transaction สั้นๆ ของตัวเอง
+     *
+     * @return true ถ้าข้อมูลโภชนาการถูกบันทึก
+     */
+    private boolean finish(Long id, Fruit.NutritionStatus status, String error,
+                           Map<String, Object> processedData, JsonNode usdaDetails) {
+        try {
+            Boolean saved = writeTransaction.execute(tx -> fruitRepository.findById(id)
+                    .map(ingredient -> {
+                        if (processedData != null) {
+                            applyNutritionData(ingredient, processedData, usdaDetails);
+                        }
+                        ingredient.setNutritionStatus(status);
+                        ingredient.setNutritionError(truncate(error));
+                        ingredient.setNutritionUpdatedAt(LocalDateTime.now());
+                        return processedData != null;
+                    })
+                    .orElse(false));
+            return Boolean.TRUE.equals(saved);
+        } catch (Exception e) {
+            log.error("Could not save nutrition enrichment result for ingredient {}: {}", id, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Set nutrition data (from USDADataParser) and flavor data (from OpenAI) on the ingredient
+     */
+    public void applyNutritionData(Fruit ingredient, Map<String, Object> processedData, JsonNode usdaDetails) {
+        if (processedData.containsKey("calorie")) {
+            ingredient.setCalorie(new BigDecimal(processedData.get("calorie").toString()));
+        }
+        if (processedData.containsKey("protein")) {
+            ingredient.setProtein(new BigDecimal(processedData.get("protein").toString()));
+        }
+        if (processedData.containsKey("fiber")) {
+            ingredient.setFiber(new BigDecimal(processedData.get("fiber").toString()));
+        }
+        try {
+            if (processedData.containsKey("vitamins")) {
+                ingredient.setVitamins(objectMapper.writeValueAsString(processedData.get("vitamins")));
+            }
+            if (processedData.containsKey("minerals")) {
+                ingredient.setMinerals(objectMapper.writeValueAsString(processedData.get("minerals")));
+            }
+            if (processedData.containsKey("flavor_profile")) {
+                ingredient.setFlavorProfile(processedData.get("flavor_profile").toString());
+            }
+            if (processedData.containsKey("taste_notes")) {
+                ingredient.setTasteNotes(processedData.get("taste_notes").toString());
+            }
+            if (processedData.containsKey("best_mix_pairing")) {
+                ingredient.setBestMixPairing(objectMapper.writeValueAsString(processedData.get("best_mix_pairing")));
+            }
+            if (processedData.containsKey("avoid_pairing")) {
+                ingredient.setAvoidPairing(objectMapper.writeValueAsString(processedData.get("avoid_pairing")));
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Error converting processed data to JSON: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to process ingredient data: " + e.getMessage(), e);
+        }
+
+        // Store raw USDA data if available
+        if (usdaDetails != null) {
+            ingredient.setRawUsdaData(usdaDetails.toString());
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -4,11 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import project.mr_smoothy.util.UpstreamGuard;
 
-import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,17 +24,14 @@ import java.util.Map;
 public class OpenAIService {
 
     private final ObjectMapper objectMapper;
-    private final WebClient.Builder webClientBuilder;
-
-    @Value("${openai.api.key}")
-    private String openaiApiKey;
+    @Qualifier("openAiWebClient")
+    private final WebClient openAiWebClient;
+    @Qualifier("openAiGuard")
+    private final UpstreamGuard openAiGuard;
 
     @Value("${openai.api.model:gpt-4o-mini}")
     private String openaiModel;
 
-    @Value("${openai.api.base-url:https://api.openai.com/v1}")
-    private String openaiBaseUrl;
-
     /**
      * Process USDA data and generate structured nutrition/flavor information
      * DEPRECATED: This method sends full USDA JSON to OpenAI which is expensive.
@@ -153,12 +151,6 @@ public class OpenAIService {
         try {
             log.info("Calling OpenAI API with model: {}", openaiModel);
             
-            WebClient webClient = webClientBuilder
-                    .baseUrl(openaiBaseUrl)
-                    .defaultHeader("Authorization", "Bearer " + openaiApiKey)
-                    .defaultHeader("Content-Type", "application/json")
-                    .build();
-
             // Build request body
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("model", openaiModel);
@@ -168,13 +160,12 @@ public class OpenAIService {
             requestBody.put("temperature", 0.7);
             requestBody.put("max_tokens", 1000); // Reduced from 2000 to save tokens
 
-            String response = webClient.post()
+            String response = openAiGuard.call(() -> openAiWebClient.post()
                     .uri("/chat/completions")
                     .bodyValue(requestBody)
                     .retrieve()
                     .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(60))
-                    .block();
+                    .block());
 
             if (response == null || response.isEmpty()) {
                 throw new RuntimeException("OpenAI API returned empty response");
@@ -213,6 +204,13 @@ public class OpenAIService {
         }
     }
 
+    /**
+     * false while the OpenAI circuit breaker is open, i.e. calls would be rejected without reaching OpenAI
+     */
+    public boolean isAvailable() {
+        return openAiGuard.isCallPermitted();
+    }
+
     @SuppressWarnings("unchecked")
     public Map<String, Object> parseOpenAIResponse(String response) {
         try {
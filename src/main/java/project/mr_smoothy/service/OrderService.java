@@ -2,19 +2,31 @@ package project.mr_smoothy.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import project.mr_smoothy.dto.request.GuestOrderCreateRequest;
 import project.mr_smoothy.dto.request.OrderCreateRequest;
 import project.mr_smoothy.dto.response.CartResponse;
 import project.mr_smoothy.dto.response.OrderItemResponse;
+import project.mr_smoothy.dto.response.OrderPageResponse;
 import project.mr_smoothy.dto.response.OrderResponse;
 import project.mr_smoothy.entity.*;
 import project.mr_smoothy.repository.*;
 import project.mr_smoothy.util.AuthUtil;
+import project.mr_smoothy.util.Money;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,13 +34,18 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_CHUNK_SIZE = 200;
+
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
     private final CartService cartService;
     private final AuthUtil authUtil;
-    private final PredefinedDrinkRepository predefinedDrinkRepository;
-    private final FruitRepository fruitRepository;
-    private final CupSizeRepository cupSizeRepository;
+    private final DashboardStatsEngine dashboardStatsEngine;
+    private final CatalogIdResolver catalogIdResolver;
+    private final PricingEngine pricingEngine;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional
     public OrderResponse createOrder(OrderCreateRequest request) {
@@ -50,7 +67,7 @@ public class OrderService {
         order.setNotes(request.getNotes());
         order.setStatus(Order.OrderStatus.PENDING);
 
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        long totalCents = 0;
 
         for (CartItem cartItem : cart.getItems()) {
             OrderItem orderItem = new OrderItem();
@@ -60,8 +77,11 @@ public class OrderService {
                 : OrderItem.ItemType.CUSTOM);
             orderItem.setCupSize(cartItem.getCupSize());
             orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setUnitPrice(cartItem.getUnitPrice());
-            orderItem.setTotalPrice(cartItem.getTotalPrice());
+            long unitCents = pricingEngine.unitPriceCents(cartItem);
+            orderItem.setUnitPrice(Money.toBigDecimal(unitCents));
+            long itemCents = Money.times(unitCents, cartItem.getQuantity());
+            orderItem.setTotalPrice(Money.toBigDecimal(itemCents));
+            totalCents = Money.add(totalCents, itemCents);
 
             if (cartItem.getType() == CartItem.ItemType.PREDEFINED) {
                 orderItem.setPredefinedDrink(cartItem.getPredefinedDrink());
@@ -76,13 +96,13 @@ public class OrderService {
             }
 
             order.getItems().add(orderItem);
-            totalPrice = totalPrice.add(orderItem.getTotalPrice());
         }
 
-        order.setTotalPrice(totalPrice);
+        order.setTotalPrice(Money.toBigDecimal(totalCents));
         Order savedOrder = orderRepository.save(order);
 
         cartService.clearMyCart();
+        dashboardStatsEngine.recordOrderPlaced(savedOrder);
 
         log.info("Order created: {}", savedOrder.getId());
         return convertToResponse(savedOrder);
@@ -97,6 +117,28 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Gets one page of the current user's order history, newest first.
+     * This method follows OOP principles by encapsulating the two-phase fetch:
+     * the page of ids is selected first, then details are fetched only for those ids,
+     * so no collection fetch join is ever paginated in memory.
+     *
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param size Page size
+     * @return OrderPageResponse
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getMyOrdersPage(String cursor, Integer size) {
+        User currentUser = authUtil.getCurrentUser();
+        int pageSize = normalizePageSize(size);
+        OrderCursor position = OrderCursor.decode(cursor);
+        List<Long> ids = orderRepository.findMyOrderIdsPage(currentUser.getId(),
+                position != null ? position.createdAt() : null,
+                position != null ? position.id() : null,
+                PageRequest.of(0, pageSize + 1));
+        return toPage(ids, pageSize);
+    }
+
     @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId) {
         User currentUser = authUtil.getCurrentUser();
@@ -135,7 +177,20 @@ public class OrderService {
         order.setNotes(request.getNotes());
         order.setStatus(Order.OrderStatus.PENDING);
 
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        // โหลดขนาดแก้ว / เครื่องดื่ม / วัตถุดิบที่อ้างถึงทั้งหมดในครั้งเดียว
+        CatalogIdResolver.Lookup lookup = catalogIdResolver.lookup();
+        for (GuestOrderCreateRequest.GuestOrderItemRequest itemRequest : request.getItems()) {
+            lookup.cupSize(itemRequest.getCupSizeId());
+            if ("PREDEFINED".equals(itemRequest.getType())) {
+                lookup.drink(itemRequest.getPredefinedDrinkId());
+            }
+            if (itemRequest.getFruits() != null) {
+                itemRequest.getFruits().forEach(fruitRequest -> lookup.fruit(fruitRequest.getFruitId()));
+            }
+        }
+        CatalogIdResolver.Resolved catalog = lookup.resolve();
+
+        long totalCents = 0;
 
         for (GuestOrderCreateRequest.GuestOrderItemRequest itemRequest : request.getItems()) {
             OrderItem orderItem = new OrderItem();
@@ -149,41 +204,43 @@ public class OrderService {
             }
             
             // Set cup size
-            CupSize cupSize = cupSizeRepository.findById(itemRequest.getCupSizeId())
-                    .orElseThrow(() -> new RuntimeException("Cup size not found: " + itemRequest.getCupSizeId()));
-            orderItem.setCupSize(cupSize);
+            orderItem.setCupSize(catalog.cupSize(itemRequest.getCupSizeId()));
             
             orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setUnitPrice(itemRequest.getUnitPrice());
-            orderItem.setTotalPrice(itemRequest.getTotalPrice());
 
             // Set predefined drink if applicable
             if (orderItem.getType() == OrderItem.ItemType.PREDEFINED && itemRequest.getPredefinedDrinkId() != null) {
-                PredefinedDrink predefinedDrink = predefinedDrinkRepository.findById(itemRequest.getPredefinedDrinkId())
-                        .orElseThrow(() -> new RuntimeException("Predefined drink not found: " + itemRequest.getPredefinedDrinkId()));
-                orderItem.setPredefinedDrink(predefinedDrink);
+                orderItem.setPredefinedDrink(catalog.drink(itemRequest.getPredefinedDrinkId()));
             }
 
             // Set fruits
             if (itemRequest.getFruits() != null) {
                 for (GuestOrderCreateRequest.GuestOrderItemFruitRequest fruitRequest : itemRequest.getFruits()) {
-                    Fruit fruit = fruitRepository.findById(fruitRequest.getFruitId())
-                            .orElseThrow(() -> new RuntimeException("Fruit not found: " + fruitRequest.getFruitId()));
-                    
                     OrderItemFruit orderItemFruit = new OrderItemFruit();
                     orderItemFruit.setOrderItem(orderItem);
-                    orderItemFruit.setFruit(fruit);
+                    orderItemFruit.setFruit(catalog.fruit(fruitRequest.getFruitId()));
                     orderItemFruit.setQuantity(fruitRequest.getQuantity());
                     orderItem.getFruits().add(orderItemFruit);
                 }
             }
 
+            // ราคาคำนวณฝั่ง server เสมอ ราคาที่ client ส่งมาใช้เพื่อตรวจสอบเท่านั้น
+            long unitCents = pricingEngine.unitPriceCents(orderItem);
+            orderItem.setUnitPrice(Money.toBigDecimal(unitCents));
+            long itemCents = Money.times(unitCents, itemRequest.getQuantity());
+            orderItem.setTotalPrice(Money.toBigDecimal(itemCents));
+            if (itemRequest.getTotalPrice() != null && itemRequest.getTotalPrice().compareTo(orderItem.getTotalPrice()) != 0) {
+                log.warn("Guest order item price mismatch: client sent {}, server computed {}",
+                        itemRequest.getTotalPrice(), orderItem.getTotalPrice());
+            }
+
             order.getItems().add(orderItem);
-            totalPrice = totalPrice.add(orderItem.getTotalPrice());
+            totalCents = Money.add(totalCents, itemCents);
         }
 
-        order.setTotalPrice(totalPrice);
+        order.setTotalPrice(Money.toBigDecimal(totalCents));
         Order savedOrder = orderRepository.save(order);
+        dashboardStatsEngine.recordOrderPlaced(savedOrder);
 
         log.info("Guest order created: {} for customer: {}", savedOrder.getId(), request.getCustomerName());
         return convertToResponse(savedOrder);
@@ -204,6 +261,169 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Gets one page of orders (admin only), newest first.
+     * This method follows OOP principles by encapsulating the keyset pagination logic:
+     * the page is located by (createdAt, id) from the cursor, so the cost does not grow with the page number,
+     * and only the ids on the page are fetched with their details.
+     *
+     * @param status Optional status filter
+     * @param from Optional first day (inclusive)
+     * @param to Optional last day (inclusive)
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param size Page size
+     * @return OrderPageResponse
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrdersPage(String status, LocalDate from, LocalDate to, String cursor, Integer size) {
+        log.info("Fetching orders page (admin): status={}, from={}, to={}, cursor={}", status, from, to, cursor);
+        int pageSize = normalizePageSize(size);
+        OrderCursor position = OrderCursor.decode(cursor);
+
+        List<Long> ids = orderRepository.findIdsPage(parseStatus(status), startOf(from), startOfNextDay(to),
+                position != null ? position.createdAt() : null,
+                position != null ? position.id() : null,
+                PageRequest.of(0, pageSize + 1));
+
+        return toPage(ids, pageSize);
+    }
+
+    /**
+     * Exports every order matching the filters (admin only), newest first.
+     * This method follows OOP principles by encapsulating the export logic:
+     * each chunk is read and converted in its own short read-only transaction,
+     * and handed to the sink only after that transaction has ended, so a slow
+     * client never holds a database connection while the response is written.
+     *
+     * @param status Optional status filter
+     * @param from Optional first day (inclusive)
+     * @param to Optional last day (inclusive)
+     * @param sink Receives each order once its chunk has been loaded
+     */
+    public void exportOrders(String status, LocalDate from, LocalDate to, Consumer<OrderResponse> sink) {
+        log.info("Exporting orders (admin): status={}, from={}, to={}", status, from, to);
+        Order.OrderStatus orderStatus = parseStatus(status);
+        LocalDateTime start = startOf(from);
+        LocalDateTime end = startOfNextDay(to);
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        OrderCursor position = null;
+        do {
+            OrderCursor after = position;
+            ExportChunk chunk = readOnlyTransaction.execute(tx -> loadExportChunk(orderStatus, start, end, after));
+            chunk.orders().forEach(sink);
+            position = chunk.next();
+        } while (position != null);
+    }
+
+    /**
+     * Loads and converts one chunk of the export with keyset pagination.
+     * Must run inside a transaction so lazy associations can be converted.
+     */
+    private ExportChunk loadExportChunk(Order.OrderStatus status, LocalDateTime from, LocalDateTime to,
+                                        OrderCursor after) {
+        List<Long> ids = orderRepository.findIdsPage(status, from, to,
+                after != null ? after.createdAt() : null,
+                after != null ? after.id() : null,
+                PageRequest.of(0, EXPORT_CHUNK_SIZE));
+        List<Order> orders = loadInIdOrder(ids);
+        OrderCursor next = null;
+        if (ids.size() == EXPORT_CHUNK_SIZE && !orders.isEmpty()) {
+            Order last = orders.get(orders.size() - 1);
+            next = new OrderCursor(last.getCreatedAt(), last.getId());
+        }
+        return new ExportChunk(orders.stream().map(this::convertToResponse).collect(Collectors.toList()), next);
+    }
+
+    /**
+     * Converted orders of one export chunk and the position of the next chunk (null when done).
+     */
+    private record ExportChunk(List<OrderResponse> orders, OrderCursor next) {
+    }
+
+    /**
+     * Builds a page from the ids of phase one, which were queried with one extra row to detect a next page.
+     */
+    private OrderPageResponse toPage(List<Long> ids, int pageSize) {
+        boolean hasMore = ids.size() > pageSize;
+        List<Order> orders = loadInIdOrder(hasMore ? ids.subList(0, pageSize) : ids);
+        Order last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+
+        return OrderPageResponse.builder()
+                .items(orders.stream().map(this::convertToResponse).collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextCursor(hasMore && last != null ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
+    /**
+     * Fetches orders with their details and returns them in the same order as the given ids.
+     */
+    private List<Order> loadInIdOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Order> byId = orderRepository.findAllWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private int normalizePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private Order.OrderStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        try {
+            return Order.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid order status: " + status);
+        }
+    }
+
+    private LocalDateTime startOf(LocalDate day) {
+        return day != null ? day.atStartOfDay() : null;
+    }
+
+    private LocalDateTime startOfNextDay(LocalDate day) {
+        return day != null ? day.plusDays(1).atStartOfDay() : null;
+    }
+
+    /**
+     * Position of the last order on a page, serialized as an opaque URL-safe token.
+     */
+    private record OrderCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static OrderCursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+
     /**
      * Gets order by ID without user check (admin only).
      * This method follows OOP principles by encapsulating the order retrieval logic.
@@ -235,6 +455,27 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Gets one page of guest orders by phone number (public API), newest first.
+     * This method follows OOP principles by encapsulating the two-phase fetch of guest order history.
+     *
+     * @param phoneNumber The phone number
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param size Page size
+     * @return OrderPageResponse
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getGuestOrdersPage(String phoneNumber, String cursor, Integer size) {
+        log.info("Fetching guest orders page for phone number: {}", phoneNumber);
+        int pageSize = normalizePageSize(size);
+        OrderCursor position = OrderCursor.decode(cursor);
+        List<Long> ids = orderRepository.findGuestOrderIdsPage(phoneNumber,
+                position != null ? position.createdAt() : null,
+                position != null ? position.id() : null,
+                PageRequest.of(0, pageSize + 1));
+        return toPage(ids, pageSize);
+    }
+
     /**
      * Gets guest order by ID (public API).
      * This method follows OOP principles by encapsulating the guest order retrieval logic.
@@ -266,8 +507,10 @@ public class OrderService {
         
         try {
             Order.OrderStatus newStatus = Order.OrderStatus.valueOf(statusString.toUpperCase());
+            Order.OrderStatus previousStatus = order.getStatus();
             order.setStatus(newStatus);
             Order savedOrder = orderRepository.save(order);
+            dashboardStatsEngine.recordStatusChange(savedOrder, previousStatus);
             log.info("Order {} status updated to {}", orderId, newStatus);
             // Reload with details to ensure all relationships are loaded for response
             return convertToResponse(orderRepository.findByIdWithDetails(savedOrder.getId())
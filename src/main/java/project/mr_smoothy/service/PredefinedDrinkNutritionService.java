@@ -0,0 +1,311 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.dto.response.PredefinedDrinkResponse;
+import project.mr_smoothy.entity.CupSize;
+import project.mr_smoothy.entity.PredefinedDrink;
+import project.mr_smoothy.entity.PredefinedDrinkFruit;
+import project.mr_smoothy.entity.PredefinedDrinkNutrition;
+import project.mr_smoothy.event.CatalogChangedEvent;
+import project.mr_smoothy.repository.CupSizeRepository;
+import project.mr_smoothy.repository.PredefinedDrinkNutritionRepository;
+import project.mr_smoothy.repository.PredefinedDrinkRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * โภชนาการของเมนู predefined ต่อขนาดแก้ว คำนวณไว้ล่วงหน้าจาก {@link NutrientMatrix}
+ * เพื่อให้หน้าเมนูแสดงแคลอรี่ได้โดยไม่ต้องเรียก /api/smoothy/calc ทีละเมนู
+ *
+ * ปริมาณต่อแก้ว: วัตถุดิบแต่ละตัวได้ sizeInMl x (quantity / จำนวนหน่วยรวมของเมนู) กรัม (ถือว่า 1 ml ≈ 1 g)
+ * <ul>
+ *   <li>เมนูถูกสร้าง / แก้ไข: PredefinedDrinkService เรียก {@link #refresh(PredefinedDrink)} ใน transaction เดียวกัน</li>
+ *   <li>วัตถุดิบหรือขนาดแก้วเปลี่ยน: คำนวณใหม่ทุกเมนูหลัง commit (หลัง NutrientMatrix และก่อน CatalogCache)</li>
+ * </ul>
+ * แถวที่ค่าไม่เปลี่ยนจะไม่ถูกเขียนซ้ำ แถวที่เปลี่ยนเขียนด้วย upsert เพราะสองทางด้านบนอาจเขียนแถวเดียวกันพร้อมกัน
+ * เมนูที่มีวัตถุดิบยังไม่มีข้อมูลโภชนาการหลัก (เช่นยังรอคิว USDA) จะไม่มีแถว จนกว่าวัตถุดิบนั้นจะได้ข้อมูล
+ */
+@Service
+@Slf4j
+public class PredefinedDrinkNutritionService {
+
+    private static final TypeReference<LinkedHashMap<String, BigDecimal>> NUTRIENT_MAP = new TypeReference<>() {
+    };
+
+    private final PredefinedDrinkNutritionRepository nutritionRepository;
+    private final PredefinedDrinkRepository drinkRepository;
+    private final CupSizeRepository cupSizeRepository;
+    private final NutrientMatrix nutrientMatrix;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
+
+    public PredefinedDrinkNutritionService(PredefinedDrinkNutritionRepository nutritionRepository,
+                                           PredefinedDrinkRepository drinkRepository,
+                                           CupSizeRepository cupSizeRepository,
+                                           NutrientMatrix nutrientMatrix,
+                                           ObjectMapper objectMapper,
+                                           PlatformTransactionManager transactionManager) {
+        this.nutritionRepository = nutritionRepository;
+        this.drinkRepository = drinkRepository;
+        this.cupSizeRepository = cupSizeRepository;
+        this.nutrientMatrix = nutrientMatrix;
+        this.objectMapper = objectMapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CatalogChangedEvent.ORDER_DERIVED)
+    public void warmUp() {
+        try {
+            refreshAll();
+        } catch (Exception e) {
+            // database อาจยังไม่พร้อม - จะคำนวณใหม่เมื่อเมนูเปลี่ยนครั้งถัดไป
+            log.warn("Could not refresh predefined drink nutrition on startup: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(CatalogChangedEvent.ORDER_DERIVED)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() == CatalogChangedEvent.Type.DRINK) {
+            // คำนวณไปแล้วใน transaction ของเมนู
+            return;
+        }
+        try {
+            refreshAll();
+        } catch (Exception e) {
+            log.warn("Could not refresh predefined drink nutrition after {} change: {}", event.type(), e.getMessage());
+        }
+    }
+
+    /**
+     * คำนวณโภชนาการของทุกเมนูใหม่ใน transaction ใหม่
+     */
+    public synchronized void refreshAll() {
+        int changed = Objects.requireNonNull(newTransaction.execute(status -> {
+            List<CupSize> cupSizes = cupSizeRepository.findByActiveTrue();
+            NutrientMatrix.Snapshot matrix = nutrientMatrix.snapshot();
+            Map<Long, List<PredefinedDrinkNutrition>> existing = groupByDrink(nutritionRepository.findAll());
+            int count = 0;
+            for (PredefinedDrink drink : drinkRepository.findAllWithIngredients()) {
+                count += refresh(drink, cupSizes, matrix, existing.getOrDefault(drink.getId(), List.of())).changed();
+            }
+            return count;
+        }));
+        log.info("Predefined drink nutrition refreshed: {} rows changed", changed);
+    }
+
+    /**
+     * คำนวณโภชนาการของเมนูเดียวใหม่ใน transaction ปัจจุบัน (ต้องมี id และส่วนผสมแล้ว)
+     *
+     * @return โภชนาการที่คำนวณได้ เรียงตามขนาดแก้ว (ว่างถ้าข้อมูลวัตถุดิบยังไม่ครบ)
+     */
+    public List<PredefinedDrinkResponse.NutritionInfo> refresh(PredefinedDrink drink) {
+        return refresh(drink, cupSizeRepository.findByActiveTrue(), nutrientMatrix.snapshot(),
+                nutritionRepository.findByDrinkIdOrderBySizeInMlAsc(drink.getId())).nutrition();
+    }
+
+    /**
+     * ลบโภชนาการของเมนู (เรียกก่อนลบเมนู)
+     */
+    public void deleteForDrink(Long drinkId) {
+        nutritionRepository.deleteByDrinkId(drinkId);
+    }
+
+    /**
+     * โภชนาการของเมนูเดียว เรียงตามขนาดแก้ว
+     */
+    public List<PredefinedDrinkResponse.NutritionInfo> forDrink(Long drinkId) {
+        return nutritionRepository.findByDrinkIdOrderBySizeInMlAsc(drinkId).stream()
+                .map(this::toInfo)
+                .toList();
+    }
+
+    /**
+     * โภชนาการของทุกเมนู (drinkId -> รายการเรียงตามขนาดแก้ว) สำหรับ list endpoint
+     */
+    public Map<Long, List<PredefinedDrinkResponse.NutritionInfo>> byDrink() {
+        Map<Long, List<PredefinedDrinkResponse.NutritionInfo>> result = new HashMap<>();
+        for (PredefinedDrinkNutrition row : nutritionRepository.findAllByOrderBySizeInMlAsc()) {
+            result.computeIfAbsent(row.getDrink().getId(), id -> new ArrayList<>()).add(toInfo(row));
+        }
+        return result;
+    }
+
+    /**
+     * เขียนแถวที่เปลี่ยนด้วย upsert และลบแถวที่ไม่ใช้แล้ว - ไม่แก้ entity ที่โหลดมา
+     * (แถวเดียวกันอาจถูกเขียน / ลบโดยอีกทางหนึ่งไปแล้ว)
+     */
+    private Refreshed refresh(PredefinedDrink drink, List<CupSize> cupSizes, NutrientMatrix.Snapshot matrix,
+                              List<PredefinedDrinkNutrition> existing) {
+        double[] perGram = perGram(drink.getIngredients(), matrix);
+        Map<Long, PredefinedDrinkNutrition> byCupSize = new HashMap<>();
+        existing.forEach(row -> byCupSize.put(row.getCupSizeId(), row));
+
+        List<PredefinedDrinkResponse.NutritionInfo> nutrition = new ArrayList<>();
+        int changed = 0;
+        if (perGram != null) {
+            LocalDateTime now = LocalDateTime.now();
+            for (CupSize cupSize : cupSizes) {
+                PredefinedDrinkNutrition row = byCupSize.remove(cupSize.getId());
+                PredefinedDrinkResponse.NutritionInfo info = compute(cupSize, perGram);
+                nutrition.add(info);
+                if (row == null || !sameAs(row, info)) {
+                    nutritionRepository.upsert(drink.getId(), cupSize.getId(), info.getVolumeMl(),
+                            info.getCalorie(), info.getProtein(), info.getFiber(),
+                            toJson(info.getVitamins()), toJson(info.getMinerals()), now);
+                    changed++;
+                }
+            }
+        }
+        // ขนาดแก้วที่ถูกลบ / ปิดใช้งาน หรือเมนูที่ไม่มีส่วนผสม / ข้อมูลวัตถุดิบไม่ครบ
+        if (!byCupSize.isEmpty()) {
+            nutritionRepository.deleteAllByIdInBatch(byCupSize.values().stream()
+                    .map(PredefinedDrinkNutrition::getId)
+                    .toList());
+            changed += byCupSize.size();
+        }
+        nutrition.sort(Comparator.comparing(PredefinedDrinkResponse.NutritionInfo::getVolumeMl));
+        return new Refreshed(nutrition, changed);
+    }
+
+    /**
+     * โภชนาการของส่วนผสม 1 กรัม (ตามสัดส่วน quantity)
+     * หรือ null ถ้าเมนูไม่มีส่วนผสม หรือมีวัตถุดิบที่ไม่อยู่ในตาราง / ยังไม่มีข้อมูลโภชนาการหลัก
+     * (นับเป็น 0 จะได้ค่าต่ำกว่าความจริง)
+     */
+    private static double[] perGram(List<PredefinedDrinkFruit> ingredients, NutrientMatrix.Snapshot matrix) {
+        long totalQuantity = 0;
+        for (PredefinedDrinkFruit ingredient : ingredients) {
+            totalQuantity += Math.max(0, ingredient.getQuantity());
+        }
+        if (totalQuantity == 0) {
+            return null;
+        }
+        double[] totals = new double[NutrientMatrix.WIDTH];
+        for (PredefinedDrinkFruit ingredient : ingredients) {
+            if (ingredient.getQuantity() <= 0) {
+                continue;
+            }
+            int row = matrix.rowOf(ingredient.getFruit().getId());
+            if (row < 0 || !matrix.hasCoreNutrition(row)) {
+                return null;
+            }
+            matrix.addTo(totals, row, (double) ingredient.getQuantity() / totalQuantity);
+        }
+        return totals;
+    }
+
+    /**
+     * โภชนาการของแก้วหนึ่งขนาด
+     */
+    private static PredefinedDrinkResponse.NutritionInfo compute(CupSize cupSize, double[] perGram) {
+        int sizeInMl = cupSize.getSizeInMl();
+        double[] totals = new double[NutrientMatrix.WIDTH];
+        for (int k = 0; k < totals.length; k++) {
+            totals[k] = perGram[k] * sizeInMl;
+        }
+        return PredefinedDrinkResponse.NutritionInfo.builder()
+                .cupSizeId(cupSize.getId())
+                .volumeMl(sizeInMl)
+                .calorie(NutrientMatrix.round(totals[NutrientMatrix.CALORIE]))
+                .protein(NutrientMatrix.round(totals[NutrientMatrix.PROTEIN]))
+                .fiber(NutrientMatrix.round(totals[NutrientMatrix.FIBER]))
+                .vitamins(NutrientMatrix.vitamins(totals))
+                .minerals(NutrientMatrix.minerals(totals))
+                .build();
+    }
+
+    /**
+     * true ถ้าแถวที่เก็บไว้มีค่าเท่ากับที่คำนวณได้
+     */
+    private boolean sameAs(PredefinedDrinkNutrition row, PredefinedDrinkResponse.NutritionInfo info) {
+        return Objects.equals(row.getSizeInMl(), info.getVolumeMl())
+                && sameValue(row.getCalorie(), info.getCalorie())
+                && sameValue(row.getProtein(), info.getProtein())
+                && sameValue(row.getFiber(), info.getFiber())
+                && sameValues(fromJson(row.getVitamins()), info.getVitamins())
+                && sameValues(fromJson(row.getMinerals()), info.getMinerals());
+    }
+
+    private static boolean sameValue(BigDecimal a, BigDecimal b) {
+        return a != null && b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * เทียบทีละ key ด้วย compareTo (MySQL จัดรูปแบบ JSON ใหม่ตอนเก็บ จึงเทียบ string ตรง ๆ ไม่ได้)
+     */
+    private static boolean sameValues(Map<String, BigDecimal> stored, Map<String, BigDecimal> computed) {
+        if (stored.size() != computed.size()) {
+            return false;
+        }
+        for (Map.Entry<String, BigDecimal> entry : computed.entrySet()) {
+            if (!sameValue(stored.get(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PredefinedDrinkResponse.NutritionInfo toInfo(PredefinedDrinkNutrition row) {
+        return PredefinedDrinkResponse.NutritionInfo.builder()
+                .cupSizeId(row.getCupSizeId())
+                .volumeMl(row.getSizeInMl())
+                .calorie(row.getCalorie())
+                .protein(row.getProtein())
+                .fiber(row.getFiber())
+                .vitamins(fromJson(row.getVitamins()))
+                .minerals(fromJson(row.getMinerals()))
+                .build();
+    }
+
+    private String toJson(Map<String, BigDecimal> nutrients) {
+        try {
+            return objectMapper.writeValueAsString(nutrients);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize nutrients", e);
+        }
+    }
+
+    private Map<String, BigDecimal> fromJson(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, NUTRIENT_MAP);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed drink nutrient JSON: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private record Refreshed(List<PredefinedDrinkResponse.NutritionInfo> nutrition, int changed) {
+    }
+
+    private static Map<Long, List<PredefinedDrinkNutrition>> groupByDrink(List<PredefinedDrinkNutrition> rows) {
+        Map<Long, List<PredefinedDrinkNutrition>> result = new HashMap<>();
+        rows.forEach(row -> result.computeIfAbsent(row.getDrink().getId(), id -> new ArrayList<>()).add(row));
+        return result;
+    }
+}
@@ -1,16 +1,16 @@
 package project.mr_smoothy.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.mr_smoothy.dto.request.PredefinedDrinkCreateRequest;
 import project.mr_smoothy.dto.request.PredefinedDrinkUpdateRequest;
 import project.mr_smoothy.dto.response.PredefinedDrinkResponse;
-import project.mr_smoothy.entity.Fruit;
 import project.mr_smoothy.entity.PredefinedDrink;
 import project.mr_smoothy.entity.PredefinedDrinkFruit;
+import project.mr_smoothy.event.CatalogChangedEvent;
 import project.mr_smoothy.repository.CartItemRepository;
-import project.mr_smoothy.repository.FruitRepository;
 import project.mr_smoothy.repository.OrderItemRepository;
 import project.mr_smoothy.repository.PredefinedDrinkFruitRepository;
 import project.mr_smoothy.repository.PredefinedDrinkRepository;
@@ -18,7 +18,9 @@ import project.mr_smoothy.repository.PredefinedDrinkRepository;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,11 +28,18 @@ import java.util.stream.Collectors;
 @Transactional
 public class PredefinedDrinkService {
 
+    /**
+     * Sort options ที่รองรับ ("" = default เรียงตาม ID)
+     */
+    public static final List<String> SORT_OPTIONS = List.of("", "price_asc", "price_desc", "name_asc", "name_desc");
+
     private final PredefinedDrinkRepository drinkRepository;
     private final PredefinedDrinkFruitRepository drinkFruitRepository;
-    private final FruitRepository fruitRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartItemRepository cartItemRepository;
+    private final CatalogIdResolver catalogIdResolver;
+    private final PredefinedDrinkNutritionService nutritionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Creates a new predefined drink entity with the provided request data.
@@ -56,8 +65,10 @@ public class PredefinedDrinkService {
             drinkFruitRepository.saveAll(ingredients);
             savedDrink.setIngredients(ingredients);
         }
+        List<PredefinedDrinkResponse.NutritionInfo> nutrition = nutritionService.refresh(savedDrink);
         
-        return toResponse(savedDrink);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.DRINK));
+        return toResponse(savedDrink, nutrition);
     }
     
     /**
@@ -94,14 +105,14 @@ public class PredefinedDrinkService {
             PredefinedDrink drink, 
             List<PredefinedDrinkCreateRequest.Ingredient> createIngredients) {
         List<PredefinedDrinkFruit> ingredients = new ArrayList<>();
+        CatalogIdResolver.Lookup lookup = catalogIdResolver.lookup();
+        createIngredients.forEach(createIngredient -> lookup.fruit(createIngredient.getFruitId()));
+        CatalogIdResolver.Resolved catalog = lookup.resolve();
         
         for (PredefinedDrinkCreateRequest.Ingredient createIngredient : createIngredients) {
-            Fruit fruit = fruitRepository.findById(createIngredient.getFruitId())
-                    .orElseThrow(() -> new RuntimeException("Fruit not found: " + createIngredient.getFruitId()));
-            
             PredefinedDrinkFruit drinkFruit = new PredefinedDrinkFruit();
             drinkFruit.setDrink(drink);
-            drinkFruit.setFruit(fruit);
+            drinkFruit.setFruit(catalog.fruit(createIngredient.getFruitId()));
             drinkFruit.setQuantity(createIngredient.getQuantity());
             
             ingredients.add(drinkFruit);
@@ -139,8 +150,10 @@ public class PredefinedDrinkService {
         // This is necessary because JPA may cache the collection state
         PredefinedDrink refreshedDrink = drinkRepository.findById(savedDrink.getId())
                 .orElseThrow(() -> new RuntimeException("Drink not found after update"));
+        List<PredefinedDrinkResponse.NutritionInfo> nutrition = nutritionService.refresh(refreshedDrink);
         
-        return toResponse(refreshedDrink);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.DRINK));
+        return toResponse(refreshedDrink, nutrition);
     }
     
     /**
@@ -226,14 +239,14 @@ public class PredefinedDrinkService {
             PredefinedDrink drink, 
             List<PredefinedDrinkUpdateRequest.Ingredient> ingredientRequests) {
         List<PredefinedDrinkFruit> ingredients = new ArrayList<>();
+        CatalogIdResolver.Lookup lookup = catalogIdResolver.lookup();
+        ingredientRequests.forEach(ingredientRequest -> lookup.fruit(ingredientRequest.getFruitId()));
+        CatalogIdResolver.Resolved catalog = lookup.resolve();
         
         for (PredefinedDrinkUpdateRequest.Ingredient ingredientRequest : ingredientRequests) {
-            Fruit fruit = fruitRepository.findById(ingredientRequest.getFruitId())
-                    .orElseThrow(() -> new RuntimeException("Fruit not found: " + ingredientRequest.getFruitId()));
-            
             PredefinedDrinkFruit drinkFruit = new PredefinedDrinkFruit();
             drinkFruit.setDrink(drink);
-            drinkFruit.setFruit(fruit);
+            drinkFruit.setFruit(catalog.fruit(ingredientRequest.getFruitId()));
             drinkFruit.setQuantity(ingredientRequest.getQuantity());
             
             ingredients.add(drinkFruit);
@@ -257,7 +270,9 @@ public class PredefinedDrinkService {
             throw new RuntimeException("ไม่สามารถลบเมนูนี้ได้ เนื่องจากมีสินค้าในตะกร้าที่ใช้เมนูนี้อยู่ กรุณาปิดการใช้งาน (Active = false) แทน");
         }
         
+        nutritionService.deleteForDrink(id);
         drinkRepository.delete(drink);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.DRINK));
     }
 
     @Transactional(readOnly = true)
@@ -274,10 +289,11 @@ public class PredefinedDrinkService {
 
     @Transactional(readOnly = true)
     public List<PredefinedDrinkResponse> list(String sortBy) {
+        Map<Long, List<PredefinedDrinkResponse.NutritionInfo>> nutrition = nutritionService.byDrink();
         return drinkRepository.findAllWithIngredients().stream()
                 .filter(d -> d.getActive())
                 .sorted(getComparator(sortBy))
-                .map(this::toResponse)
+                .map(d -> toResponse(d, nutrition.getOrDefault(d.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
@@ -289,9 +305,10 @@ public class PredefinedDrinkService {
     @Transactional(readOnly = true)
     public List<PredefinedDrinkResponse> listAll(String sortBy) {
         // สำหรับ admin ให้แสดงทุกเมนู รวมทั้งที่ปิดการใช้งาน
+        Map<Long, List<PredefinedDrinkResponse.NutritionInfo>> nutrition = nutritionService.byDrink();
         return drinkRepository.findAllWithIngredients().stream()
                 .sorted(getComparator(sortBy))
-                .map(this::toResponse)
+                .map(d -> toResponse(d, nutrition.getOrDefault(d.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
@@ -303,9 +320,10 @@ public class PredefinedDrinkService {
     @Transactional(readOnly = true)
     public List<PredefinedDrinkResponse> listPopular(String sortBy) {
         // สำหรับหน้า home - แสดงเฉพาะ popular menu ที่ active
+        Map<Long, List<PredefinedDrinkResponse.NutritionInfo>> nutrition = nutritionService.byDrink();
         return drinkRepository.findPopularWithIngredients().stream()
                 .sorted(getComparator(sortBy))
-                .map(this::toResponse)
+                .map(d -> toResponse(d, nutrition.getOrDefault(d.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
@@ -321,10 +339,44 @@ public class PredefinedDrinkService {
         PredefinedDrink refreshedDrink = drinkRepository.findByIdWithIngredients(savedDrink.getId())
                 .orElseThrow(() -> new RuntimeException("Drink not found after update"));
         
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.DRINK));
         return toResponse(refreshedDrink);
     }
 
+    /**
+     * Lists active drinks pre-sorted for every supported sort option from a single fetch.
+     * This method follows OOP principles by encapsulating the catalog view building logic
+     * used by the public catalog snapshot.
+     * 
+     * @param popularOnly true to include only popular drinks
+     * @return Drinks per sort option, in SORT_OPTIONS order
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<PredefinedDrinkResponse>> listActiveBySortOption(boolean popularOnly) {
+        List<PredefinedDrink> drinks = drinkRepository.findAllWithIngredients().stream()
+                .filter(d -> d.getActive())
+                .filter(d -> !popularOnly || Boolean.TRUE.equals(d.getPopular()))
+                .collect(Collectors.toList());
+
+        Map<Long, List<PredefinedDrinkResponse.NutritionInfo>> nutrition = nutritionService.byDrink();
+        Map<Long, PredefinedDrinkResponse> responses = new LinkedHashMap<>();
+        drinks.forEach(d -> responses.put(d.getId(), toResponse(d, nutrition.getOrDefault(d.getId(), List.of()))));
+
+        Map<String, List<PredefinedDrinkResponse>> bySortOption = new LinkedHashMap<>();
+        for (String sortBy : SORT_OPTIONS) {
+            bySortOption.put(sortBy, drinks.stream()
+                    .sorted(getComparator(sortBy))
+                    .map(d -> responses.get(d.getId()))
+                    .collect(Collectors.toUnmodifiableList()));
+        }
+        return bySortOption;
+    }
+
     private PredefinedDrinkResponse toResponse(PredefinedDrink d) {
+        return toResponse(d, nutritionService.forDrink(d.getId()));
+    }
+
+    private PredefinedDrinkResponse toResponse(PredefinedDrink d, List<PredefinedDrinkResponse.NutritionInfo> nutrition) {
         return PredefinedDrinkResponse.builder()
                 .id(d.getId())
                 .name(d.getName())
@@ -339,6 +391,7 @@ public class PredefinedDrinkService {
                         .fruitName(df.getFruit().getName())
                         .quantity(df.getQuantity())
                         .build()).collect(Collectors.toList()))
+                .nutrition(nutrition)
                 .build();
     }
 
@@ -0,0 +1,219 @@
+package project.mr_smoothy.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.mr_smoothy.entity.CartItem;
+import project.mr_smoothy.entity.CartItemFruit;
+import project.mr_smoothy.entity.CupSize;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.entity.OrderItem;
+import project.mr_smoothy.entity.OrderItemFruit;
+import project.mr_smoothy.entity.PredefinedDrink;
+import project.mr_smoothy.entity.PredefinedDrinkFruit;
+import project.mr_smoothy.event.CatalogChangedEvent;
+import project.mr_smoothy.repository.CupSizeRepository;
+import project.mr_smoothy.repository.FruitRepository;
+import project.mr_smoothy.repository.PredefinedDrinkRepository;
+import project.mr_smoothy.util.Money;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * คำนวณราคาสินค้าฝั่ง server จากตารางราคาที่ compile ไว้ล่วงหน้า (หน่วยสตางค์, long)
+ * ตารางเก็บเป็น array ของ id ที่เรียงแล้วคู่กับ array ราคา ค้นด้วย binary search
+ * จึงไม่ต้องแตะ database หรือ lazy load และไม่สร้าง object ระหว่างคำนวณ
+ *
+ * ราคาต่อแก้ว = ราคาขนาดแก้ว + ผลรวม (ราคาวัตถุดิบ x จำนวน)
+ * สำหรับเมนู predefined ใช้ผลรวมของส่วนผสมในเมนู (คำนวณไว้ในตารางแล้ว)
+ * ตารางจะถูกสร้างใหม่เมื่อเมนูเปลี่ยน (CatalogChangedEvent หลัง commit)
+ * id ที่ยังไม่อยู่ในตาราง (เช่นเพิ่งสร้างและยังไม่ถึงรอบ rebuild) จะอ่านราคาจาก repository แทน
+ */
+@Service
+@Slf4j
+public class PricingEngine {
+
+    private final CupSizeRepository cupSizeRepository;
+    private final FruitRepository fruitRepository;
+    private final PredefinedDrinkRepository predefinedDrinkRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile PriceTables tables;
+
+    public PricingEngine(CupSizeRepository cupSizeRepository,
+                         FruitRepository fruitRepository,
+                         PredefinedDrinkRepository predefinedDrinkRepository,
+                         PlatformTransactionManager transactionManager) {
+        this.cupSizeRepository = cupSizeRepository;
+        this.fruitRepository = fruitRepository;
+        this.predefinedDrinkRepository = predefinedDrinkRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * ราคาต่อแก้วของ item ในตะกร้า (สตางค์)
+     */
+    public long unitPriceCents(CartItem item) {
+        PriceTables t = tables();
+        long cents = cupSizeCents(t, item.getCupSize().getId());
+        if (item.getType() == CartItem.ItemType.PREDEFINED) {
+            return Money.add(cents, predefinedDrinkCents(t, item.getPredefinedDrink().getId()));
+        }
+        List<CartItemFruit> fruits = item.getFruits();
+        for (int i = 0; i < fruits.size(); i++) {
+            CartItemFruit fruit = fruits.get(i);
+            cents = Money.add(cents, Money.times(fruitCents(t, fruit.getFruit().getId()), fruit.getQuantity()));
+        }
+        return cents;
+    }
+
+    /**
+     * ราคาต่อแก้วของ item ใน order (สตางค์)
+     */
+    public long unitPriceCents(OrderItem item) {
+        PriceTables t = tables();
+        long cents = cupSizeCents(t, item.getCupSize().getId());
+        if (item.getType() == OrderItem.ItemType.PREDEFINED && item.getPredefinedDrink() != null) {
+            return Money.add(cents, predefinedDrinkCents(t, item.getPredefinedDrink().getId()));
+        }
+        List<OrderItemFruit> fruits = item.getFruits();
+        for (int i = 0; i < fruits.size(); i++) {
+            OrderItemFruit fruit = fruits.get(i);
+            cents = Money.add(cents, Money.times(fruitCents(t, fruit.getFruit().getId()), fruit.getQuantity()));
+        }
+        return cents;
+    }
+
+    public long totalPriceCents(CartItem item) {
+        return Money.times(unitPriceCents(item), item.getQuantity());
+    }
+
+    public long totalPriceCents(OrderItem item) {
+        return Money.times(unitPriceCents(item), item.getQuantity());
+    }
+
+    /**
+     * ราคารวมของทั้งตะกร้า (สตางค์)
+     */
+    public long totalPriceCents(List<CartItem> items) {
+        long cents = 0;
+        for (int i = 0; i < items.size(); i++) {
+            cents = Money.add(cents, totalPriceCents(items.get(i)));
+        }
+        return cents;
+    }
+
+    private PriceTables tables() {
+        PriceTables t = tables;
+        return t != null ? t : rebuild();
+    }
+
+    private long cupSizeCents(PriceTables t, long id) {
+        long cents = t.cupSizes.find(id);
+        if (cents != PriceTable.MISSING) {
+            return cents;
+        }
+        log.debug("Cup size {} is not in the price tables yet, reading it from the database", id);
+        return cupSizeRepository.findById(id)
+                .map(cs -> Money.toMinor(cs.getPrice()))
+                .orElseThrow(() -> new RuntimeException("Cup size not found: " + id));
+    }
+
+    private long fruitCents(PriceTables t, long id) {
+        long cents = t.fruits.find(id);
+        if (cents != PriceTable.MISSING) {
+            return cents;
+        }
+        log.debug("Fruit {} is not in the price tables yet, reading it from the database", id);
+        return fruitRepository.findById(id)
+                .map(f -> Money.toMinor(f.getPricePerUnit()))
+                .orElseThrow(() -> new RuntimeException("Fruit not found: " + id));
+    }
+
+    private long predefinedDrinkCents(PriceTables t, long id) {
+        long cents = t.drinks.find(id);
+        if (cents != PriceTable.MISSING) {
+            return cents;
+        }
+        log.debug("Predefined drink {} is not in the price tables yet, reading it from the database", id);
+        return predefinedDrinkRepository.findByIdWithIngredients(id)
+                .map(PricingEngine::drinkCents)
+                .orElseThrow(() -> new RuntimeException("Predefined drink not found: " + id));
+    }
+
+    /**
+     * โหลดราคาทั้งหมดแล้ว compile เป็นตารางใหม่ (สลับแทนของเดิมทั้งก้อน)
+     */
+    public synchronized PriceTables rebuild() {
+        PriceTables built = readOnlyTransaction.execute(status -> new PriceTables(
+                compile(cupSizeRepository.findAll(), CupSize::getId, cs -> Money.toMinor(cs.getPrice())),
+                compile(fruitRepository.findAll(), Fruit::getId, f -> Money.toMinor(f.getPricePerUnit())),
+                compile(predefinedDrinkRepository.findAllWithIngredients(), PredefinedDrink::getId, PricingEngine::drinkCents)));
+        tables = built;
+        log.info("Price tables rebuilt: {} cup sizes, {} fruits, {} drinks",
+                built.cupSizes.ids.length, built.fruits.ids.length, built.drinks.ids.length);
+        return built;
+    }
+
+    private static long drinkCents(PredefinedDrink drink) {
+        long cents = 0;
+        for (PredefinedDrinkFruit ingredient : drink.getIngredients()) {
+            cents = Money.add(cents, Money.times(Money.toMinor(ingredient.getFruit().getPricePerUnit()), ingredient.getQuantity()));
+        }
+        return cents;
+    }
+
+    private static <T> PriceTable compile(List<T> entities, Function<T, Long> idOf, ToLongFunction<T> centsOf) {
+        List<T> sorted = entities.stream().sorted(Comparator.comparing(idOf)).toList();
+        long[] ids = new long[sorted.size()];
+        long[] cents = new long[sorted.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf.apply(sorted.get(i));
+            cents[i] = centsOf.applyAsLong(sorted.get(i));
+        }
+        return new PriceTable(ids, cents);
+    }
+
+    /**
+     * ตารางราคาแบบ id เรียง + ราคา (immutable)
+     */
+    private record PriceTable(long[] ids, long[] cents) {
+
+        static final long MISSING = Long.MIN_VALUE;
+
+        /**
+         * @return ราคาของ id หรือ MISSING ถ้าไม่อยู่ในตาราง
+         */
+        long find(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? cents[index] : MISSING;
+        }
+    }
+
+    public static final class PriceTables {
+        private final PriceTable cupSizes;
+        private final PriceTable fruits;
+        private final PriceTable drinks;
+
+        private PriceTables(PriceTable cupSizes, PriceTable fruits, PriceTable drinks) {
+            this.cupSizes = cupSizes;
+            this.fruits = fruits;
+            this.drinks = drinks;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import project.mr_smoothy.entity.SmoothyAnalysisEntry;
+import project.mr_smoothy.repository.SmoothyAnalysisRepository;
+import project.mr_smoothy.util.BoundedTtlCache;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache ผลวิเคราะห์รสชาติ smoothy จาก OpenAI แบบ content-addressed
+ * key = SHA-256 ของวัตถุดิบที่เรียงตาม id + ปริมาณที่ปัดตาม gram step + ข้อมูลที่ส่งให้ OpenAI
+ * (เมื่อข้อมูลวัตถุดิบเปลี่ยน key ก็เปลี่ยนเอง ไม่ต้อง invalidate)
+ * ชั้นแรกเป็น LRU ใน memory ชั้นที่สองเป็นตาราง smoothy_analysis_cache (ถ้าเปิด persist)
+ * request ที่ key เดียวกันพร้อมกันจะรอผลจากการเรียก OpenAI ครั้งเดียว
+ */
+@Service
+@Slf4j
+public class SmoothyAnalysisCache {
+
+    private final SmoothyAnalysisRepository smoothyAnalysisRepository;
+    private final ObjectMapper objectMapper;
+    private final BoundedTtlCache<String, Map<String, Object>> memory;
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final double gramStep;
+    private final boolean persist;
+
+    public SmoothyAnalysisCache(SmoothyAnalysisRepository smoothyAnalysisRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${smoothy.analysis.cache.max-size:1000}") int maxSize,
+                                @Value("${smoothy.analysis.cache.ttl-hours:24}") long ttlHours,
+                                @Value("${smoothy.analysis.cache.gram-step:10}") double gramStep,
+                                @Value("${smoothy.analysis.cache.persist:false}") boolean persist) {
+        this.smoothyAnalysisRepository = smoothyAnalysisRepository;
+        this.objectMapper = objectMapper;
+        this.memory = new BoundedTtlCache<>(maxSize, Duration.ofHours(ttlHours).toMillis());
+        this.gramStep = gramStep > 0 ? gramStep : 1;
+        this.persist = persist;
+    }
+
+    /**
+     * ปัดปริมาณ (กรัม) ไปยัง step ที่ใกล้ที่สุด - อย่างน้อยหนึ่ง step
+     */
+    public double bucket(double grams) {
+        return Math.max(gramStep, Math.round(grams / gramStep) * gramStep);
+    }
+
+    /**
+     * สร้าง key จากวัตถุดิบที่จะส่งให้ OpenAI (ลำดับใน request ไม่มีผล)
+     */
+    public AnalysisKey keyOf(List<KeyPart> parts) {
+        String canonical = parts.stream()
+                .sorted(Comparator.comparing(KeyPart::ingredientId).thenComparingDouble(KeyPart::grams))
+                .map(KeyPart::canonical)
+                .collect(Collectors.joining("|"));
+        return new AnalysisKey(sha256(canonical), canonical);
+    }
+
+    /**
+     * คืนผลจาก cache ถ้ามี (memory หรือ database) โดยไม่เรียก OpenAI
+     */
+    public Optional<Map<String, Object>> peek(AnalysisKey key) {
+        return peek(key.hash());
+    }
+
+    /**
+     * คืนผลจาก cache ด้วย hash ของ key (ใช้ตอน poll ผลวิเคราะห์)
+     */
+    public Optional<Map<String, Object>> peek(String hash) {
+        Map<String, Object> cached = memory.get(hash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (!persist) {
+            return Optional.empty();
+        }
+        try {
+            Optional<Map<String, Object>> stored = smoothyAnalysisRepository.findById(hash)
+                    .map(entry -> readResult(entry.getResult()));
+            stored.ifPresent(result -> memory.put(hash, result));
+            return stored;
+        } catch (Exception e) {
+            log.warn("Could not read smoothy analysis cache entry {}: {}", hash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * มีการวิเคราะห์ของ key นี้กำลังทำงานอยู่หรือไม่
+     */
+    public boolean isInFlight(String hash) {
+        return inFlight.containsKey(hash);
+    }
+
+    /**
+     * คืนผลจาก cache หรือเรียก compute บน executor
+     * ถ้ามีการเรียกด้วย key เดียวกันค้างอยู่ จะได้ future ตัวเดียวกัน (ไม่เรียก OpenAI ซ้ำ)
+     * ผลที่ล้มเหลวจะไม่ถูก cache
+     */
+    public CompletableFuture<Map<String, Object>> getAsync(AnalysisKey key,
+                                                           Supplier<Map<String, Object>> compute,
+                                                           Executor executor) {
+        Optional<Map<String, Object>> cached = peek(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key.hash(), created);
+        if (existing != null) {
+            log.debug("Joining in-flight smoothy analysis {}", key.hash());
+            return existing;
+        }
+        // งานก่อนหน้าอาจ store + ออกจาก inFlight ระหว่าง peek ด้านบนกับ putIfAbsent - ตรวจ cache อีกครั้ง
+        cached = peek(key);
+        if (cached.isPresent()) {
+            inFlight.remove(key.hash(), created);
+            created.complete(cached.get());
+            return created;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    Map<String, Object> result = compute.get();
+                    store(key, result);
+                    created.complete(result);
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key.hash(), created);
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor ปฏิเสธงาน
+            inFlight.remove(key.hash(), created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void store(AnalysisKey key, Map<String, Object> result) {
+        memory.put(key.hash(), result);
+        if (!persist) {
+            return;
+        }
+        try {
+            smoothyAnalysisRepository.save(new SmoothyAnalysisEntry(
+                    key.hash(), key.canonical(), objectMapper.writeValueAsString(result), LocalDateTime.now()));
+        } catch (Exception e) {
+            log.warn("Could not store smoothy analysis cache entry {}: {}", key.hash(), e.getMessage());
+        }
+    }
+
+    private Map<String, Object> readResult(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() { });
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid cached smoothy analysis", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * key ของผลวิเคราะห์: hash สำหรับค้นหา + canonical string สำหรับ debug
+     */
+    public record AnalysisKey(String hash, String canonical) {
+    }
+
+    /**
+     * วัตถุดิบหนึ่งรายการในการวิเคราะห์ (ปริมาณที่ปัดแล้ว + ข้อมูลต่อ 100 กรัมที่ส่งให้ OpenAI)
+     */
+    public record KeyPart(Long ingredientId, double grams, String name, String flavorProfile,
+                          BigDecimal caloriePer100g, BigDecimal proteinPer100g, BigDecimal fiberPer100g) {
+        String canonical() {
+            return ingredientId + ":" + grams + ":" + name + ":" + flavorProfile + ":"
+                    + plain(caloriePer100g) + ":" + plain(proteinPer100g) + ":" + plain(fiberPer100g);
+        }
+
+        private static String plain(BigDecimal value) {
+            return value != null ? value.stripTrailingZeros().toPlainString() : "";
+        }
+    }
+}
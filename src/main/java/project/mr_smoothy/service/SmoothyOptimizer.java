@@ -0,0 +1,654 @@
+package project.mr_smoothy.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import project.mr_smoothy.dto.request.SmoothyOptimizeRequest;
+import project.mr_smoothy.dto.response.CupSizeResponse;
+import project.mr_smoothy.dto.response.FruitResponse;
+import project.mr_smoothy.dto.response.SmoothyCalcResponse;
+import project.mr_smoothy.dto.response.SmoothyOptimizeResponse;
+import project.mr_smoothy.util.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * หาสูตรสมูทตี้ที่ถูกที่สุดซึ่งผ่านเป้าหมายโภชนาการ (POST /api/smoothy/optimize)
+ *
+ * ค้นจากวัตถุดิบที่ active ใน {@link CatalogCache} โดยใช้ค่าโภชนาการจาก {@link NutrientMatrix}
+ * และตัดคู่ที่ไม่เข้ากัน (avoid_pairing) ด้วย pairing graph ของ {@link LocalFlavorAnalyzer} - ไม่แตะ database
+ * สูตรหนึ่งคือวัตถุดิบไม่เกิน max-ingredients ชนิด ชนิดละ 1..max-units หน่วย
+ * ปริมาณในแก้วคิดแบบเดียวกับเมนู predefined: sizeInMl x (หน่วย / หน่วยรวม) กรัม
+ *
+ * Branch-and-bound บน ForkJoinPool:
+ * <ul>
+ *   <li>วัตถุดิบเรียงตามราคา ราคาของสูตรเพิ่มขึ้นเสมอเมื่อเติมวัตถุดิบ จึงตัดกิ่งที่แพงกว่าอันดับสุดท้ายของ top-N ได้ทันที</li>
+ *   <li>ค่าโภชนาการต่อแก้วเป็นค่าเฉลี่ยถ่วงน้ำหนัก สูตรที่ต่อจากกิ่งนี้จึงอยู่ระหว่างค่าปัจจุบันกับ min / max
+ *       ของวัตถุดิบที่เหลือ ถ้าช่วงนั้นไม่ถึงเป้าก็ตัดกิ่งได้</li>
+ *   <li>กิ่งระดับบนถูกแยกเป็น task ให้ worker ช่วยกัน ทุก task หยุดเมื่อเกิน time-budget-ms
+ *       (ผลที่ได้ยังผ่านเป้าทุกสูตร แต่ response จะมี complete=false)</li>
+ * </ul>
+ * การค้นหาทำบน pool ของตัวเองและคืน CompletableFuture (ไม่ block servlet thread)
+ * ค้นพร้อมกันได้ไม่เกิน max-concurrent ครั้ง เกินจากนั้นถูกปฏิเสธทันที
+ */
+@Service
+@Slf4j
+public class SmoothyOptimizer {
+
+    private static final double EPSILON = 1e-9;
+    private static final int SPLIT_DEPTH = 2;
+    private static final int SEQUENTIAL_THRESHOLD = 6;
+    private static final int DEADLINE_CHECK_MASK = 0xFF;
+
+    private final CatalogCache catalogCache;
+    private final NutrientMatrix nutrientMatrix;
+    private final LocalFlavorAnalyzer flavorAnalyzer;
+    private final ForkJoinPool pool;
+    private final Semaphore searches;
+    private final long timeBudgetMillis;
+    private final int maxIngredients;
+    private final int maxUnits;
+    private final int maxResults;
+
+    public SmoothyOptimizer(CatalogCache catalogCache,
+                            NutrientMatrix nutrientMatrix,
+                            LocalFlavorAnalyzer flavorAnalyzer,
+                            @Value("${smoothy.optimizer.parallelism:4}") int parallelism,
+                            @Value("${smoothy.optimizer.max-concurrent:2}") int maxConcurrent,
+                            @Value("${smoothy.optimizer.time-budget-ms:1500}") long timeBudgetMillis,
+                            @Value("${smoothy.optimizer.max-ingredients:4}") int maxIngredients,
+                            @Value("${smoothy.optimizer.max-units:3}") int maxUnits,
+                            @Value("${smoothy.optimizer.max-results:10}") int maxResults) {
+        this.catalogCache = catalogCache;
+        this.nutrientMatrix = nutrientMatrix;
+        this.flavorAnalyzer = flavorAnalyzer;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("smoothy-optimizer-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.searches = new Semaphore(Math.max(1, maxConcurrent));
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+        this.maxIngredients = Math.max(1, maxIngredients);
+        this.maxUnits = Math.max(1, maxUnits);
+        this.maxResults = Math.max(1, maxResults);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * หาสูตรที่ผ่านเป้าหมาย เรียงจากราคาถูกสุด (ราคาเท่ากันเรียงตามความเข้ากันของวัตถุดิบ)
+     * ตรวจ request ใน thread ของผู้เรียก แล้วค้นหาบน pool ของ optimizer
+     *
+     * @throws RuntimeException ถ้า minCalorie มากกว่า maxCalorie, ไม่พบขนาดแก้ว,
+     *                          วัตถุดิบใน mustInclude ไม่มี / ไม่ active หรือมีการค้นหาครบ max-concurrent แล้ว
+     */
+    public CompletableFuture<SmoothyOptimizeResponse> optimizeAsync(SmoothyOptimizeRequest request) {
+        long start = System.nanoTime();
+        if (request.getMinCalorie() != null && request.getMaxCalorie() != null
+                && request.getMinCalorie() > request.getMaxCalorie()) {
+            throw new RuntimeException("minCalorie must not be greater than maxCalorie");
+        }
+        CatalogCache.Snapshot catalog = catalogCache.snapshot();
+        NutrientMatrix.Snapshot matrix = nutrientMatrix.snapshot();
+        CupSizeResponse cupSize = resolveCupSize(catalog.getCupSizes(), request.getCupSizeId());
+
+        int ingredientLimit = Math.min(maxIngredients, request.getMaxIngredients() != null ? request.getMaxIngredients() : maxIngredients);
+        int resultLimit = Math.min(maxResults, request.getLimit() != null ? request.getLimit() : maxResults);
+        List<Item> items = candidates(request, catalog.getFruits(), matrix);
+        int mandatory = (int) items.stream().filter(Item::mandatory).count();
+        if (mandatory > ingredientLimit) {
+            throw new RuntimeException("mustInclude has more than " + ingredientLimit + " ingredients");
+        }
+
+        Problem problem = new Problem(items, pairScores(items), mandatory, ingredientLimit, maxUnits,
+                cupSize.getVolumeMl(), Targets.of(request));
+        if (!searches.tryAcquire()) {
+            throw new RuntimeException("Optimizer is busy, please try again");
+        }
+        Search search = new Search(problem, resultLimit, start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis));
+        CompletableFuture<Void> done;
+        try {
+            done = CompletableFuture.runAsync(() -> search.root().invoke(), pool);
+        } catch (RuntimeException e) {
+            searches.release();
+            throw e;
+        }
+        return done.whenComplete((ignored, error) -> searches.release())
+                .thenApply(ignored -> toResponse(search, problem, items.size(), cupSize, matrix, start));
+    }
+
+    private SmoothyOptimizeResponse toResponse(Search search, Problem problem, int candidates, CupSizeResponse cupSize,
+                                               NutrientMatrix.Snapshot matrix, long start) {
+        List<SmoothyOptimizeResponse.Combination> combinations = search.results().stream()
+                .map(found -> toResponse(found, problem, matrix, Money.toMinor(cupSize.getPriceExtra())))
+                .toList();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Optimized smoothy over {} candidates in {} ms: {} combinations, {} explored{}",
+                candidates, elapsedMs, combinations.size(), search.explored(), search.timedOut() ? " (time budget hit)" : "");
+        return SmoothyOptimizeResponse.builder()
+                .cupSizeId(cupSize.getId())
+                .volumeMl(cupSize.getVolumeMl())
+                .complete(!search.timedOut())
+                .exploredCombinations(search.explored())
+                .elapsedMs(elapsedMs)
+                .combinations(combinations)
+                .build();
+    }
+
+    private static CupSizeResponse resolveCupSize(List<CupSizeResponse> cupSizes, Long cupSizeId) {
+        if (cupSizeId != null) {
+            return cupSizes.stream()
+                    .filter(cs -> cupSizeId.equals(cs.getId()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Cup size not found"));
+        }
+        return cupSizes.stream()
+                .min(Comparator.comparing(CupSizeResponse::getVolumeMl).thenComparing(CupSizeResponse::getId))
+                .orElseThrow(() -> new RuntimeException("No active cup size"));
+    }
+
+    /**
+     * วัตถุดิบที่ใช้ค้นหา: mustInclude ก่อน (ตามลำดับที่ส่งมา) แล้วตามด้วยตัวเลือกที่เรียงตามราคา
+     * ตัวเลือกต้อง active มีข้อมูลโภชนาการ ไม่ถูก exclude / avoid และเข้ากันได้กับทุกตัวใน mustInclude
+     * mustInclude ไม่ถูกกรองด้วย avoid (ระบุ id ตรง ๆ ถือว่าตั้งใจ)
+     */
+    private List<Item> candidates(SmoothyOptimizeRequest request, List<FruitResponse> fruits, NutrientMatrix.Snapshot matrix) {
+        Map<Long, FruitResponse> active = new HashMap<>();
+        fruits.forEach(fruit -> active.put(fruit.getId(), fruit));
+
+        Set<Long> mustInclude = new LinkedHashSet<>(request.getMustInclude() != null ? request.getMustInclude() : List.of());
+        mustInclude.remove(null);
+        Set<Long> missing = mustInclude.stream()
+                .filter(id -> !active.containsKey(id) || matrix.rowOf(id) < 0)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Fruit not found: "
+                    + missing.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+        }
+
+        List<Item> items = new ArrayList<>();
+        mustInclude.forEach(id -> items.add(toItem(active.get(id), matrix, true)));
+
+        Set<Long> exclude = new HashSet<>(request.getExclude() != null ? request.getExclude() : List.of());
+        List<String> avoid = (request.getAvoid() != null ? request.getAvoid() : List.<String>of()).stream()
+                .map(LocalFlavorAnalyzer::normalize)
+                .filter(keyword -> !keyword.isEmpty())
+                .toList();
+        LocalFlavorAnalyzer.PairingGraph graph = flavorAnalyzer.graph();
+
+        List<Item> optional = new ArrayList<>();
+        for (FruitResponse fruit : fruits) {
+            int row = matrix.rowOf(fruit.getId());
+            if (row < 0 || !matrix.hasCoreNutrition(row) || mustInclude.contains(fruit.getId())
+                    || exclude.contains(fruit.getId()) || isAvoided(fruit, avoid)) {
+                continue;
+            }
+            boolean clashes = mustInclude.stream().anyMatch(id -> {
+                LocalFlavorAnalyzer.Edge edge = graph.edge(id, fruit.getId());
+                return edge != null && edge.score() < 0;
+            });
+            if (!clashes) {
+                optional.add(toItem(fruit, matrix, false));
+            }
+        }
+        optional.sort(Comparator.comparingLong(Item::priceCents).thenComparing(Item::id));
+        items.addAll(optional);
+        return items;
+    }
+
+    private boolean isAvoided(FruitResponse fruit, List<String> avoid) {
+        if (avoid.isEmpty()) {
+            return false;
+        }
+        String category = fruit.getCategory() != null
+                ? LocalFlavorAnalyzer.normalize(fruit.getCategory().name().replace('_', ' '))
+                : "";
+        for (String keyword : avoid) {
+            if (flavorAnalyzer.mentions(fruit.getId(), keyword) || (" " + category + " ").contains(" " + keyword + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Item toItem(FruitResponse fruit, NutrientMatrix.Snapshot matrix, boolean mandatory) {
+        int row = matrix.rowOf(fruit.getId());
+        return new Item(fruit.getId(), fruit.getName(), row, mandatory,
+                fruit.getPricePerUnit() != null ? Money.toMinor(fruit.getPricePerUnit()) : 0,
+                matrix.per100g(row, NutrientMatrix.CALORIE) / 100.0,
+                matrix.per100g(row, NutrientMatrix.PROTEIN) / 100.0,
+                matrix.per100g(row, NutrientMatrix.FIBER) / 100.0);
+    }
+
+    /**
+     * คะแนนความเข้ากันของทุกคู่ (> 0 เข้ากัน, < 0 ห้ามอยู่ด้วยกัน)
+     */
+    private int[][] pairScores(List<Item> items) {
+        LocalFlavorAnalyzer.PairingGraph graph = flavorAnalyzer.graph();
+        int n = items.size();
+        int[][] scores = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                LocalFlavorAnalyzer.Edge edge = graph.edge(items.get(i).id(), items.get(j).id());
+                if (edge != null) {
+                    scores[i][j] = edge.score();
+                    scores[j][i] = edge.score();
+                }
+            }
+        }
+        return scores;
+    }
+
+    private SmoothyOptimizeResponse.Combination toResponse(Found found, Problem problem,
+                                                           NutrientMatrix.Snapshot matrix, long cupCents) {
+        int totalUnits = Arrays.stream(found.quantities()).sum();
+        double[] totals = new double[NutrientMatrix.WIDTH];
+        List<SmoothyOptimizeResponse.Ingredient> ingredients = new ArrayList<>();
+        for (int k = 0; k < found.items().length; k++) {
+            Item item = problem.items().get(found.items()[k]);
+            double grams = (double) problem.volumeMl() * found.quantities()[k] / totalUnits;
+            matrix.addTo(totals, item.row(), grams);
+            ingredients.add(SmoothyOptimizeResponse.Ingredient.builder()
+                    .ingredientId(item.id())
+                    .name(item.name())
+                    .quantity(found.quantities()[k])
+                    .amount(BigDecimal.valueOf(grams).setScale(1, RoundingMode.HALF_UP))
+                    .build());
+        }
+
+        LocalFlavorAnalyzer.PairingGraph graph = flavorAnalyzer.graph();
+        List<String> synergy = new ArrayList<>();
+        for (int a = 0; a < found.items().length; a++) {
+            for (int b = a + 1; b < found.items().length; b++) {
+                LocalFlavorAnalyzer.Edge edge = graph.edge(problem.items().get(found.items()[a]).id(),
+                        problem.items().get(found.items()[b]).id());
+                if (edge != null && edge.score() > 0) {
+                    synergy.add(edge.reason());
+                }
+            }
+        }
+
+        return SmoothyOptimizeResponse.Combination.builder()
+                .price(Money.toBigDecimal(Money.add(cupCents, found.priceCents())))
+                .ingredients(ingredients)
+                .totalNutrition(SmoothyCalcResponse.TotalNutrition.builder()
+                        .totalCalorie(NutrientMatrix.round(totals[NutrientMatrix.CALORIE]))
+                        .totalProtein(NutrientMatrix.round(totals[NutrientMatrix.PROTEIN]))
+                        .totalFiber(NutrientMatrix.round(totals[NutrientMatrix.FIBER]))
+                        .vitamins(NutrientMatrix.vitamins(totals))
+                        .minerals(NutrientMatrix.minerals(totals))
+                        .build())
+                .synergy(synergy)
+                .build();
+    }
+
+    /**
+     * วัตถุดิบหนึ่งตัวในการค้นหา (ความหนาแน่นต่อกรัม)
+     */
+    record Item(Long id, String name, int row, boolean mandatory, long priceCents,
+                double caloriePerGram, double proteinPerGram, double fiberPerGram) {
+    }
+
+    /**
+     * เป้าหมายต่อแก้ว (NaN = ไม่กำหนด)
+     */
+    record Targets(double minCalorie, double maxCalorie, double minProtein, double minFiber) {
+
+        static Targets of(SmoothyOptimizeRequest request) {
+            return new Targets(orNaN(request.getMinCalorie()), orNaN(request.getMaxCalorie()),
+                    orNaN(request.getMinProtein()), orNaN(request.getMinFiber()));
+        }
+
+        private static double orNaN(Double value) {
+            return value != null ? value : Double.NaN;
+        }
+    }
+
+    /**
+     * ข้อมูลของการค้นหาหนึ่งครั้ง: items[0, mandatory) คือ mustInclude ส่วนที่เหลือคือตัวเลือกเรียงตามราคา
+     * suffix arrays เก็บ min / max ความหนาแน่นของตัวเลือกตั้งแต่ index นั้นถึงท้าย
+     */
+    record Problem(List<Item> items, int[][] pairScores, int mandatory, int maxIngredients, int maxUnits,
+                   int volumeMl, Targets targets, double[] suffixMinCalorie, double[] suffixMaxCalorie,
+                   double[] suffixMaxProtein, double[] suffixMaxFiber) {
+
+        Problem(List<Item> items, int[][] pairScores, int mandatory, int maxIngredients, int maxUnits,
+                int volumeMl, Targets targets) {
+            this(items, pairScores, mandatory, maxIngredients, maxUnits, volumeMl, targets,
+                    suffix(items, Item::caloriePerGram, true), suffix(items, Item::caloriePerGram, false),
+                    suffix(items, Item::proteinPerGram, false), suffix(items, Item::fiberPerGram, false));
+        }
+
+        private static double[] suffix(List<Item> items, ToDoubleFunction<Item> value, boolean min) {
+            double[] result = new double[items.size() + 1];
+            result[items.size()] = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            for (int i = items.size() - 1; i >= 0; i--) {
+                double v = value.applyAsDouble(items.get(i));
+                result[i] = min ? Math.min(v, result[i + 1]) : Math.max(v, result[i + 1]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * สูตรที่ผ่านเป้า (index ใน Problem.items เรียงจากน้อยไปมาก, ราคาไม่รวมแก้ว)
+     */
+    record Found(int[] items, int[] quantities, long priceCents, int pairScore) {
+    }
+
+    /**
+     * ถูกก่อน, เข้ากันมากก่อน, วัตถุดิบน้อยก่อน แล้วเทียบ index / หน่วยเพื่อให้ลำดับแน่นอน
+     */
+    static final Comparator<Found> RANKING = Comparator.comparingLong(Found::priceCents)
+            .thenComparing(Comparator.comparingInt(Found::pairScore).reversed())
+            .thenComparingInt(found -> found.items().length)
+            .thenComparing(Found::items, Arrays::compare)
+            .thenComparing(Found::quantities, Arrays::compare);
+
+    /**
+     * สถานะการค้นหาที่ทุก task ใช้ร่วมกัน: top-N, เส้นตาย และตัวนับ
+     */
+    static final class Search {
+        private final Problem problem;
+        private final int limit;
+        private final long deadlineNanos;
+        private final PriorityQueue<Found> best;
+        private final LongAdder explored = new LongAdder();
+        private volatile long worstAcceptedCents = Long.MAX_VALUE;
+        private volatile boolean timedOut;
+
+        Search(Problem problem, int limit, long deadlineNanos) {
+            this.problem = problem;
+            this.limit = limit;
+            this.deadlineNanos = deadlineNanos;
+            this.best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        }
+
+        Branch root() {
+            return new Branch(this, new State(problem.maxIngredients()), problem.mandatory(), 0);
+        }
+
+        synchronized List<Found> results() {
+            List<Found> results = new ArrayList<>(best);
+            results.sort(RANKING);
+            return results;
+        }
+
+        long explored() {
+            return explored.sum();
+        }
+
+        boolean timedOut() {
+            return timedOut;
+        }
+
+        synchronized void offer(Found found) {
+            if (best.size() >= limit && RANKING.compare(found, best.peek()) >= 0) {
+                return;
+            }
+            best.add(found);
+            if (best.size() > limit) {
+                best.poll();
+            }
+            if (best.size() >= limit) {
+                worstAcceptedCents = best.peek().priceCents();
+            }
+        }
+
+        /**
+         * ประเมิน node ปัจจุบัน (บันทึกถ้าเป็นสูตรที่ผ่านเป้า)
+         *
+         * @return true ถ้าควรเติมวัตถุดิบต่อจาก node นี้
+         */
+        boolean visit(State state, int next, long nodes) {
+            if ((nodes & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadlineNanos > 0) {
+                timedOut = true;
+            }
+            if (timedOut || state.priceCents > worstAcceptedCents) {
+                return false;
+            }
+            boolean mandatoryDone = state.count >= problem.mandatory();
+            if (mandatoryDone && state.count > 0 && meetsTargets(state)) {
+                offer(state.toFound());
+            }
+            if (state.count >= problem.maxIngredients()) {
+                return false;
+            }
+            return !mandatoryDone || (next < problem.items().size() && canStillMeetTargets(state, next));
+        }
+
+        private boolean meetsTargets(State state) {
+            Targets targets = problem.targets();
+            double perGram = (double) problem.volumeMl() / state.units;
+            return atLeast(state.calorie * perGram, targets.minCalorie())
+                    && atMost(state.calorie * perGram, targets.maxCalorie())
+                    && atLeast(state.protein * perGram, targets.minProtein())
+                    && atLeast(state.fiber * perGram, targets.minFiber());
+        }
+
+        /**
+         * ค่าเฉลี่ยถ่วงน้ำหนักของสูตรที่ต่อจากนี้อยู่ระหว่างค่าปัจจุบันกับ min / max ของตัวเลือกที่เหลือ
+         */
+        private boolean canStillMeetTargets(State state, int next) {
+            Targets targets = problem.targets();
+            int volume = problem.volumeMl();
+            double current = state.units > 0 ? 1.0 / state.units : Double.NaN;
+            return atLeast(volume * best(state.calorie * current, problem.suffixMaxCalorie()[next], true), targets.minCalorie())
+                    && atMost(volume * best(state.calorie * current, problem.suffixMinCalorie()[next], false), targets.maxCalorie())
+                    && atLeast(volume * best(state.protein * current, problem.suffixMaxProtein()[next], true), targets.minProtein())
+                    && atLeast(volume * best(state.fiber * current, problem.suffixMaxFiber()[next], true), targets.minFiber());
+        }
+
+        private static double best(double current, double remaining, boolean max) {
+            if (Double.isNaN(current)) {
+                return remaining;
+            }
+            return max ? Math.max(current, remaining) : Math.min(current, remaining);
+        }
+
+        private static boolean atLeast(double value, double min) {
+            return Double.isNaN(min) || value >= min - EPSILON;
+        }
+
+        private static boolean atMost(double value, double max) {
+            return Double.isNaN(max) || value <= max + EPSILON;
+        }
+    }
+
+    /**
+     * สูตรที่กำลังสร้าง (แก้ไขแบบ push / pop ภายใน task เดียว, copy เมื่อแยก task)
+     */
+    static final class State {
+        final int[] items;
+        final int[] quantities;
+        int count;
+        int units;
+        long priceCents;
+        int pairScore;
+        double calorie;
+        double protein;
+        double fiber;
+
+        State(int capacity) {
+            this.items = new int[capacity];
+            this.quantities = new int[capacity];
+        }
+
+        State copy() {
+            State copy = new State(items.length);
+            System.arraycopy(items, 0, copy.items, 0, count);
+            System.arraycopy(quantities, 0, copy.quantities, 0, count);
+            copy.count = count;
+            copy.units = units;
+            copy.priceCents = priceCents;
+            copy.pairScore = pairScore;
+            copy.calorie = calorie;
+            copy.protein = protein;
+            copy.fiber = fiber;
+            return copy;
+        }
+
+        void push(Problem problem, int index, int quantity) {
+            Item item = problem.items().get(index);
+            for (int k = 0; k < count; k++) {
+                pairScore += problem.pairScores()[items[k]][index];
+            }
+            items[count] = index;
+            quantities[count] = quantity;
+            count++;
+            units += quantity;
+            priceCents += item.priceCents() * quantity;
+            calorie += item.caloriePerGram() * quantity;
+            protein += item.proteinPerGram() * quantity;
+            fiber += item.fiberPerGram() * quantity;
+        }
+
+        void pop(Problem problem) {
+            count--;
+            int index = items[count];
+            int quantity = quantities[count];
+            Item item = problem.items().get(index);
+            units -= quantity;
+            priceCents -= item.priceCents() * quantity;
+            calorie -= item.caloriePerGram() * quantity;
+            protein -= item.proteinPerGram() * quantity;
+            fiber -= item.fiberPerGram() * quantity;
+            for (int k = 0; k < count; k++) {
+                pairScore -= problem.pairScores()[items[k]][index];
+            }
+        }
+
+        boolean clashesWith(Problem problem, int index) {
+            for (int k = 0; k < count; k++) {
+                if (problem.pairScores()[items[k]][index] < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Found toFound() {
+            return new Found(Arrays.copyOf(items, count), Arrays.copyOf(quantities, count), priceCents, pairScore);
+        }
+    }
+
+    /**
+     * กิ่งหนึ่งของการค้นหา: ระดับบนแยกลูกเป็น task ย่อย ระดับล่างค้นแบบ depth-first ใน thread เดียว
+     */
+    static final class Branch extends RecursiveAction {
+        private final Search search;
+        private final State state;
+        private final int next;
+        private final int depth;
+        private long nodes;
+
+        Branch(Search search, State state, int next, int depth) {
+            this.search = search;
+            this.state = state;
+            this.next = next;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            Problem problem = search.problem;
+            boolean split = depth < SPLIT_DEPTH && problem.items().size() - next > SEQUENTIAL_THRESHOLD;
+            if (!split) {
+                explore(next);
+                search.explored.add(nodes);
+                return;
+            }
+            if (!search.visit(state, next, nodes++)) {
+                search.explored.add(nodes);
+                return;
+            }
+            List<Branch> children = new ArrayList<>();
+            forEachChild(next, (index, quantity) -> {
+                State child = state.copy();
+                child.push(problem, index, quantity);
+                children.add(new Branch(search, child, childNext(index), depth + 1));
+            });
+            search.explored.add(nodes);
+            invokeAll(children);
+        }
+
+        private void explore(int from) {
+            if (!search.visit(state, from, nodes++)) {
+                return;
+            }
+            Problem problem = search.problem;
+            forEachChild(from, (index, quantity) -> {
+                state.push(problem, index, quantity);
+                explore(childNext(index));
+                state.pop(problem);
+            });
+        }
+
+        /**
+         * mustInclude ถูกเติมตามลำดับก่อน (ลูกคือจำนวนหน่วยของตัวถัดไป) จากนั้นจึงเลือกตัวเลือกที่ index >= from
+         * ตัวเลือกเรียงตามราคา จึงหยุดวนได้ทันทีที่ราคาเกินอันดับสุดท้ายของ top-N
+         */
+        private void forEachChild(int from, ChildConsumer consumer) {
+            Problem problem = search.problem;
+            if (state.count < problem.mandatory()) {
+                for (int quantity = 1; quantity <= problem.maxUnits(); quantity++) {
+                    consumer.accept(state.count, quantity);
+                }
+                return;
+            }
+            for (int index = from; index < problem.items().size(); index++) {
+                if (search.timedOut) {
+                    return;
+                }
+                long unitCents = problem.items().get(index).priceCents();
+                if (state.priceCents + unitCents > search.worstAcceptedCents) {
+                    return;
+                }
+                if (state.clashesWith(problem, index)) {
+                    continue;
+                }
+                for (int quantity = 1; quantity <= problem.maxUnits(); quantity++) {
+                    if (state.priceCents + unitCents * quantity > search.worstAcceptedCents) {
+                        break;
+                    }
+                    consumer.accept(index, quantity);
+                }
+            }
+        }
+
+        private int childNext(int index) {
+            return index < search.problem.mandatory() ? search.problem.mandatory() : index + 1;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChildConsumer {
+        void accept(int index, int quantity);
+    }
+}
@@ -1,104 +1,257 @@
 package project.mr_smoothy.service;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import project.mr_smoothy.dto.request.SmoothyCalcRequest;
+import project.mr_smoothy.dto.response.SmoothyAnalysisResponse;
 import project.mr_smoothy.dto.response.SmoothyCalcResponse;
-import project.mr_smoothy.entity.Fruit;
-import project.mr_smoothy.repository.FruitRepository;
+import project.mr_smoothy.util.ThreadFactories;
+import project.mr_smoothy.util.UpstreamGuard;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for calculating smoothy nutrition and flavor analysis
+ * Nutrition totals are computed locally. With smoothy.analysis.mode=local (default) the flavor analysis
+ * comes from {@link LocalFlavorAnalyzer}; with mode=ai it is an OpenAI call on a bounded pool so request
+ * threads never block on it (see {@link #calculateSmoothyAsync}), and the local analysis is served meanwhile
+ * and whenever OpenAI fails.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SmoothyService {
 
-    private final FruitRepository fruitRepository;
+    private final NutrientMatrix nutrientMatrix;
     private final OpenAIService openAIService;
+    private final LocalFlavorAnalyzer localFlavorAnalyzer;
+    private final SmoothyAnalysisCache analysisCache;
+    private final boolean aiAnalysis;
+    private final ThreadPoolExecutor analysisExecutor;
+    private final long analysisTimeoutMillis;
+
+    public SmoothyService(NutrientMatrix nutrientMatrix,
+                          OpenAIService openAIService,
+                          LocalFlavorAnalyzer localFlavorAnalyzer,
+                          SmoothyAnalysisCache analysisCache,
+                          @Value("${smoothy.analysis.mode:local}") String analysisMode,
+                          @Value("${smoothy.analysis.threads:8}") int analysisThreads,
+                          @Value("${smoothy.analysis.queue-capacity:100}") int queueCapacity,
+                          @Value("${smoothy.analysis.timeout-ms:8000}") long analysisTimeoutMillis,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.nutrientMatrix = nutrientMatrix;
+        this.openAIService = openAIService;
+        this.localFlavorAnalyzer = localFlavorAnalyzer;
+        this.analysisCache = analysisCache;
+        this.aiAnalysis = "ai".equalsIgnoreCase(analysisMode.trim());
+        this.analysisTimeoutMillis = analysisTimeoutMillis;
+        int threads = Math.max(1, analysisThreads);
+        this.analysisExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                ThreadFactories.named("smoothy-analysis", virtualThreads));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        analysisExecutor.shutdownNow();
+    }
+
+    /**
+     * Calculate smoothy nutrition and analyze flavor without blocking the caller.
+     * In local mode the future is already complete. In ai mode it completes with the OpenAI analysis,
+     * or after smoothy.analysis.timeout-ms with analysisStatus PENDING and the local analysis (the OpenAI
+     * call keeps running and can be polled with {@link #getAnalysis(String)}), or with the local analysis
+     * as FALLBACK on failure.
+     */
+    public CompletableFuture<SmoothyCalcResponse> calculateSmoothyAsync(SmoothyCalcRequest request) {
+        Prepared prepared = prepare(request);
+        if (!aiAnalysis) {
+            return CompletableFuture.completedFuture(
+                    toResponse(prepared, localAnalysis(prepared), SmoothyCalcResponse.AnalysisStatus.READY));
+        }
+
+        return startAnalysis(prepared)
+                .thenApply(analysis -> toResponse(prepared, analysis, SmoothyCalcResponse.AnalysisStatus.READY))
+                .exceptionally(e -> {
+                    log.warn("Smoothy flavor analysis failed: {}", e.getMessage());
+                    return toResponse(prepared, localAnalysis(prepared), SmoothyCalcResponse.AnalysisStatus.FALLBACK);
+                })
+                .completeOnTimeout(toResponse(prepared, localAnalysis(prepared), SmoothyCalcResponse.AnalysisStatus.PENDING),
+                        analysisTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return nutrition totals immediately. In ai mode the OpenAI analysis is started in the background
+     * and included when it is already cached; otherwise the local analysis is returned as PENDING
+     * and the OpenAI result can be polled with {@link #getAnalysis(String)}.
+     */
+    public SmoothyCalcResponse calculateNutrition(SmoothyCalcRequest request) {
+        Prepared prepared = prepare(request);
+        if (!aiAnalysis) {
+            return toResponse(prepared, localAnalysis(prepared), SmoothyCalcResponse.AnalysisStatus.READY);
+        }
+
+        CompletableFuture<Map<String, Object>> analysis = startAnalysis(prepared);
+        if (analysis.isDone() && !analysis.isCompletedExceptionally()) {
+            return toResponse(prepared, analysis.join(), SmoothyCalcResponse.AnalysisStatus.READY);
+        }
+        return toResponse(prepared, localAnalysis(prepared),
+                analysis.isCompletedExceptionally()
+                        ? SmoothyCalcResponse.AnalysisStatus.FALLBACK
+                        : SmoothyCalcResponse.AnalysisStatus.PENDING);
+    }
+
+    /**
+     * Poll a flavor analysis started by {@link #calculateSmoothyAsync} or {@link #calculateNutrition}
+     *
+     * @return empty if the key is unknown (never started, failed or evicted)
+     */
+    public Optional<SmoothyAnalysisResponse> getAnalysis(String analysisKey) {
+        Optional<Map<String, Object>> cached = analysisCache.peek(analysisKey);
+        if (cached.isPresent()) {
+            Map<String, Object> analysis = cached.get();
+            return Optional.of(SmoothyAnalysisResponse.builder()
+                    .analysisKey(analysisKey)
+                    .analysisStatus(SmoothyCalcResponse.AnalysisStatus.READY)
+                    .flavorDescription(analysis.getOrDefault("flavorDescription", "").toString())
+                    .synergy(stringList(analysis, "synergy"))
+                    .cancellation(stringList(analysis, "cancellation"))
+                    .build());
+        }
+        if (analysisCache.isInFlight(analysisKey)) {
+            return Optional.of(SmoothyAnalysisResponse.builder()
+                    .analysisKey(analysisKey)
+                    .analysisStatus(SmoothyCalcResponse.AnalysisStatus.PENDING)
+                    .synergy(List.of())
+                    .cancellation(List.of())
+                    .build());
+        }
+        return Optional.empty();
+    }
+
+    private CompletableFuture<Map<String, Object>> startAnalysis(Prepared prepared) {
+        if (!openAIService.isAvailable()) {
+            // OpenAI circuit is open: serve a cached analysis if there is one, otherwise fall back right away
+            return analysisCache.peek(prepared.analysisKey())
+                    .map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> CompletableFuture.failedFuture(
+                            new UpstreamGuard.RejectedException("OpenAI is temporarily unavailable")));
+        }
+        return analysisCache.getAsync(prepared.analysisKey(),
+                () -> openAIService.analyzeSmoothyCombination(prepared.ingredientData()),
+                analysisExecutor);
+    }
 
     /**
-     * Calculate smoothy nutrition and analyze flavor
+     * Compute nutrition totals and the analysis inputs from the in-memory {@link NutrientMatrix}
+     * (no database access, no remote calls)
      */
-    public SmoothyCalcResponse calculateSmoothy(SmoothyCalcRequest request) {
+    private Prepared prepare(SmoothyCalcRequest request) {
         log.info("Calculating smoothy with {} ingredients", request.getIngredients().size());
 
-        // Step 1: Fetch ingredients from database
+        NutrientMatrix.Snapshot matrix = nutrientMatrix.snapshot();
+        int[] rows = matrix.requireRows(request.getIngredients().stream()
+                .map(SmoothyCalcRequest.IngredientAmount::getIngredientId)
+                .toList());
+
         List<Map<String, Object>> ingredientData = new ArrayList<>();
-        BigDecimal totalCalorie = BigDecimal.ZERO;
-        BigDecimal totalProtein = BigDecimal.ZERO;
-        BigDecimal totalFiber = BigDecimal.ZERO;
-
-        for (SmoothyCalcRequest.IngredientAmount item : request.getIngredients()) {
-            Fruit ingredient = fruitRepository.findById(item.getIngredientId())
-                    .orElseThrow(() -> new RuntimeException(
-                            "Ingredient not found with id: " + item.getIngredientId()));
-
-            if (ingredient.getCalorie() == null || ingredient.getProtein() == null || 
-                ingredient.getFiber() == null) {
-                log.warn("Ingredient {} has missing nutrition data, skipping", ingredient.getName());
+        List<SmoothyAnalysisCache.KeyPart> keyParts = new ArrayList<>();
+        List<LocalFlavorAnalyzer.Portion> portions = new ArrayList<>();
+        double[] totals = new double[NutrientMatrix.WIDTH];
+
+        for (int i = 0; i < rows.length; i++) {
+            SmoothyCalcRequest.IngredientAmount item = request.getIngredients().get(i);
+            int row = rows[i];
+            String name = matrix.name(row);
+
+            if (!matrix.hasCoreNutrition(row)) {
+                log.warn("Ingredient {} has missing nutrition data, skipping", name);
                 continue;
             }
 
-            // Calculate nutrition for the amount (assuming nutrition is per 100g)
+            // Calculate nutrition for the amount (nutrition is per 100g)
             double amountInGrams = item.getAmount();
-            double multiplier = amountInGrams / 100.0;
+            matrix.addTo(totals, row, amountInGrams);
 
-            BigDecimal calorie = ingredient.getCalorie().multiply(BigDecimal.valueOf(multiplier));
-            BigDecimal protein = ingredient.getProtein().multiply(BigDecimal.valueOf(multiplier));
-            BigDecimal fiber = ingredient.getFiber().multiply(BigDecimal.valueOf(multiplier));
-
-            totalCalorie = totalCalorie.add(calorie);
-            totalProtein = totalProtein.add(protein);
-            totalFiber = totalFiber.add(fiber);
-
-            // Prepare data for OpenAI
+            // Prepare data for OpenAI - amounts are bucketed so near-identical recipes share one analysis
+            double bucketGrams = analysisCache.bucket(amountInGrams);
+            double bucketMultiplier = bucketGrams / 100.0;
+            double calorie = matrix.per100g(row, NutrientMatrix.CALORIE);
+            double protein = matrix.per100g(row, NutrientMatrix.PROTEIN);
+            double fiber = matrix.per100g(row, NutrientMatrix.FIBER);
+            String flavorProfile = matrix.flavorProfile(row) != null
+                    ? matrix.flavorProfile(row)
+                    : "unknown";
             Map<String, Object> ingredientMap = Map.of(
-                    "name", ingredient.getName(),
-                    "amount", amountInGrams,
-                    "calorie", calorie.doubleValue(),
-                    "protein", protein.doubleValue(),
-                    "fiber", fiber.doubleValue(),
-                    "flavorProfile", ingredient.getFlavorProfile() != null 
-                            ? ingredient.getFlavorProfile() 
-                            : "unknown"
+                    "name", name,
+                    "amount", bucketGrams,
+                    "calorie", calorie * bucketMultiplier,
+                    "protein", protein * bucketMultiplier,
+                    "fiber", fiber * bucketMultiplier,
+                    "flavorProfile", flavorProfile
             );
             ingredientData.add(ingredientMap);
+            portions.add(new LocalFlavorAnalyzer.Portion(item.getIngredientId(), name,
+                    matrix.flavorProfile(row), amountInGrams));
+            keyParts.add(new SmoothyAnalysisCache.KeyPart(item.getIngredientId(), bucketGrams, name, flavorProfile,
+                    BigDecimal.valueOf(calorie), BigDecimal.valueOf(protein), BigDecimal.valueOf(fiber)));
         }
 
-        // Step 2: Analyze with OpenAI
-        Map<String, Object> analysis = openAIService.analyzeSmoothyCombination(ingredientData);
-
-        // Step 3: Build response
         SmoothyCalcResponse.TotalNutrition totalNutrition = SmoothyCalcResponse.TotalNutrition.builder()
-                .totalCalorie(totalCalorie)
-                .totalProtein(totalProtein)
-                .totalFiber(totalFiber)
+                .totalCalorie(NutrientMatrix.round(totals[NutrientMatrix.CALORIE]))
+                .totalProtein(NutrientMatrix.round(totals[NutrientMatrix.PROTEIN]))
+                .totalFiber(NutrientMatrix.round(totals[NutrientMatrix.FIBER]))
+                .vitamins(NutrientMatrix.vitamins(totals))
+                .minerals(NutrientMatrix.minerals(totals))
                 .build();
+        return new Prepared(totalNutrition, List.copyOf(ingredientData), List.copyOf(portions),
+                analysisCache.keyOf(keyParts));
+    }
 
-        @SuppressWarnings("unchecked")
-        List<String> synergy = analysis.containsKey("synergy") && analysis.get("synergy") instanceof List
-                ? (List<String>) analysis.get("synergy")
-                : new ArrayList<>();
-        
-        @SuppressWarnings("unchecked")
-        List<String> cancellation = analysis.containsKey("cancellation") && analysis.get("cancellation") instanceof List
-                ? (List<String>) analysis.get("cancellation")
-                : new ArrayList<>();
-
+    private SmoothyCalcResponse toResponse(Prepared prepared, Map<String, Object> analysis,
+                                           SmoothyCalcResponse.AnalysisStatus status) {
         return SmoothyCalcResponse.builder()
-                .totalNutrition(totalNutrition)
+                .totalNutrition(prepared.totalNutrition())
                 .flavorDescription(analysis.getOrDefault("flavorDescription", "").toString())
-                .synergy(synergy)
-                .cancellation(cancellation)
+                .synergy(stringList(analysis, "synergy"))
+                .cancellation(stringList(analysis, "cancellation"))
+                .analysisStatus(status)
+                .analysisKey(aiAnalysis ? prepared.analysisKey().hash() : null)
                 .build();
     }
-}
 
+    /**
+     * Pairing-graph analysis from the ingredients' own flavor and pairing data (no remote calls)
+     */
+    private Map<String, Object> localAnalysis(Prepared prepared) {
+        return localFlavorAnalyzer.analyze(prepared.portions());
+    }
+
+    private static List<String> stringList(Map<String, Object> analysis, String key) {
+        Object value = analysis.get(key);
+        if (!(value instanceof List<?> list)) {
+            return new ArrayList<>();
+        }
+        List<String> strings = new ArrayList<>(list.size());
+        list.forEach(item -> strings.add(String.valueOf(item)));
+        return strings;
+    }
+
+    /**
+     * Nutrition totals, OpenAI input and local analyzer input computed from one request
+     */
+    private record Prepared(SmoothyCalcResponse.TotalNutrition totalNutrition,
+                            List<Map<String, Object>> ingredientData,
+                            List<LocalFlavorAnalyzer.Portion> portions,
+                            SmoothyAnalysisCache.AnalysisKey analysisKey) {
+    }
+}
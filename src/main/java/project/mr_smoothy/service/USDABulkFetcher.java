@@ -0,0 +1,136 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.util.ThreadFactories;
+import project.mr_smoothy.util.UpstreamGuard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * ดึงข้อมูล USDA สำหรับวัตถุดิบหลายรายการพร้อมกัน
+ * ค้นหา fdcId แบบขนาน (จำกัดจำนวน request พร้อมกันด้วย usda.bulk.parallelism)
+ * แล้วขอรายละเอียดทั้งหมดผ่าน GET /foods แบบหลาย id
+ * ใช้โดย worker ของ {@link NutritionEnrichmentService} ทีละ batch
+ */
+@Service
+@Slf4j
+public class USDABulkFetcher {
+
+    private final USDAService usdaService;
+    private final ExecutorService pool;
+
+    public USDABulkFetcher(USDAService usdaService,
+                           @Value("${usda.bulk.parallelism:4}") int parallelism,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.usdaService = usdaService;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                ThreadFactories.named("usda-bulk", virtualThreads));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * ค้นหาและดึงรายละเอียด USDA ของทุกชื่อ
+     *
+     * @param names ชื่อวัตถุดิบ (ไทยหรืออังกฤษ - USDAService แปลให้)
+     * @return ผลลัพธ์ต่อชื่อ ตามลำดับเดิม (ชื่อซ้ำถูกค้นหาครั้งเดียว)
+     */
+    public Map<String, Result> fetch(Collection<String> names) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        List<Result> searched = mapConcurrently(distinctNames, this::search);
+
+        List<Integer> fdcIds = searched.stream()
+                .filter(result -> result.fdcId() != null)
+                .map(Result::fdcId)
+                .toList();
+
+        Map<Integer, JsonNode> details = Map.of();
+        Exception detailsError = null;
+        if (!fdcIds.isEmpty()) {
+            try {
+                details = usdaService.getFoodsDetails(fdcIds);
+            } catch (Exception e) {
+                detailsError = e;
+            }
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (int i = 0; i < distinctNames.size(); i++) {
+            Result result = searched.get(i);
+            if (result.fdcId() != null) {
+                JsonNode food = details.get(result.fdcId());
+                if (detailsError != null) {
+                    result = Result.failed(detailsError);
+                } else if (food == null) {
+                    result = Result.failed(Fruit.NutritionStatus.NOT_FOUND,
+                            "USDA did not return details for fdcId: " + result.fdcId());
+                } else {
+                    result = new Result(result.fdcId(), food, Fruit.NutritionStatus.DONE, null, null);
+                }
+            }
+            results.put(distinctNames.get(i), result);
+        }
+        return results;
+    }
+
+    /**
+     * เรียก function กับทุก item บน pool เดียวกัน (ใช้ parallelism cap เดียวกับการค้นหา USDA)
+     *
+     * @return ผลลัพธ์ตามลำดับของ items
+     */
+    public <T, R> List<R> mapConcurrently(List<T> items, Function<T, R> function) {
+        List<CompletableFuture<R>> futures = items.stream()
+                .map(item -> CompletableFuture.supplyAsync(() -> function.apply(item), pool))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private Result search(String name) {
+        try {
+            Integer fdcId = usdaService.extractFdcId(usdaService.searchFood(name));
+            if (fdcId == null) {
+                return Result.failed(Fruit.NutritionStatus.NOT_FOUND,
+                        "ไม่พบข้อมูลโภชนาการสำหรับ: " + name + " ใน USDA database");
+            }
+            return new Result(fdcId, null, Fruit.NutritionStatus.PENDING, null, null);
+        } catch (Exception e) {
+            return Result.failed(e);
+        }
+    }
+
+    /**
+     * ผลการดึงข้อมูลของหนึ่งชื่อ - details มีค่าเมื่อ status เป็น DONE
+     * status PENDING พร้อม rejection หมายถึง USDA ปฏิเสธการเรียก (circuit เปิด / bulkhead เต็ม) ให้ลองใหม่ภายหลัง
+     */
+    public record Result(Integer fdcId, JsonNode details, Fruit.NutritionStatus status, String error,
+                         UpstreamGuard.RejectedException rejection) {
+        static Result failed(Fruit.NutritionStatus status, String error) {
+            return new Result(null, null, status, error, null);
+        }
+
+        static Result failed(Exception e) {
+            UpstreamGuard.RejectedException rejection = UpstreamGuard.findRejection(e);
+            if (rejection != null) {
+                return new Result(null, null, Fruit.NutritionStatus.PENDING, e.getMessage(), rejection);
+            }
+            return failed(USDAService.isFoodNotFound(e) ? Fruit.NutritionStatus.NOT_FOUND : Fruit.NutritionStatus.FAILED, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import project.mr_smoothy.dto.response.UsdaCacheStatsResponse;
+import project.mr_smoothy.entity.UsdaCacheEntry;
+import project.mr_smoothy.repository.UsdaCacheRepository;
+import project.mr_smoothy.util.BoundedTtlCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache สองชั้นของ response จาก USDA: LRU ใน memory + ตาราง usda_cache (gzip JSON, มี TTL)
+ * key ผูกกับชื่อภาษาอังกฤษหลังแปลแล้ว ชื่อไทยและอังกฤษของวัตถุดิบเดียวกันจึงใช้ entry เดียวกัน
+ * ถ้า database ใช้งานไม่ได้จะทำงานต่อด้วย memory อย่างเดียว (cache ไม่ควรทำให้การดึงข้อมูลล้ม)
+ */
+@Service
+@Slf4j
+public class USDAResponseCache {
+
+    private final UsdaCacheRepository usdaCacheRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final BoundedTtlCache<String, JsonNode> memory;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder databaseHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public USDAResponseCache(UsdaCacheRepository usdaCacheRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${usda.cache.memory-max-size:1000}") int memoryMaxSize,
+                             @Value("${usda.cache.ttl-days:30}") long ttlDays) {
+        this.usdaCacheRepository = usdaCacheRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.memory = new BoundedTtlCache<>(memoryMaxSize, ttl.toMillis());
+    }
+
+    public static String searchKey(String englishName) {
+        return "search:" + englishName.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    public static String foodKey(Integer fdcId) {
+        return "food:" + fdcId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void purgeExpired() {
+        try {
+            int removed = usdaCacheRepository.deleteExpired(LocalDateTime.now());
+            if (removed > 0) {
+                log.info("Removed {} expired USDA cache entries", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not purge expired USDA cache entries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * อ่านจาก memory ก่อน แล้วค่อยอ่านจาก database (entry ที่หมดอายุถือว่า miss)
+     */
+    public Optional<JsonNode> get(String key) {
+        JsonNode cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return Optional.of(cached);
+        }
+
+        try {
+            Optional<UsdaCacheEntry> entry = usdaCacheRepository.findById(key);
+            if (entry.isPresent() && entry.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+                JsonNode json = objectMapper.readTree(gunzip(entry.get().getPayload()));
+                memory.put(key, json, toEpochMillis(entry.get().getExpiresAt()));
+                databaseHits.increment();
+                return Optional.of(json);
+            }
+        } catch (Exception e) {
+            log.warn("Could not read USDA cache entry {}: {}", key, e.getMessage());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String key, JsonNode json) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        memory.put(key, json, toEpochMillis(expiresAt));
+        try {
+            usdaCacheRepository.save(new UsdaCacheEntry(key, gzip(objectMapper.writeValueAsBytes(json)), now, expiresAt));
+        } catch (Exception e) {
+            log.warn("Could not store USDA cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    public UsdaCacheStatsResponse stats() {
+        long memory = memoryHits.sum();
+        long database = databaseHits.sum();
+        long miss = misses.sum();
+        long lookups = memory + database + miss;
+        return UsdaCacheStatsResponse.builder()
+                .memoryHits(memory)
+                .databaseHits(database)
+                .misses(miss)
+                .hitRatio(lookups == 0 ? 0.0 : (double) (memory + database) / lookups)
+                .memoryEntries(this.memory.size())
+                .build();
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -4,12 +4,20 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import project.mr_smoothy.util.UpstreamGuard;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Service for interacting with USDA FoodData Central API
@@ -20,113 +28,41 @@ import java.time.Duration;
 @Slf4j
 public class USDAService {
 
-    private final WebClient.Builder webClientBuilder;
+    @Qualifier("usdaWebClient")
+    private final WebClient usdaWebClient;
+    @Qualifier("usdaGuard")
+    private final UpstreamGuard usdaGuard;
     private final ObjectMapper objectMapper;
-    private final OpenAIService openAIService;
+    private final FoodNameTranslator foodNameTranslator;
+    private final USDAResponseCache responseCache;
+
+    private static final int MAX_FDC_IDS_PER_REQUEST = 20;
 
     @Value("${usda.api.key:}")
     private String usdaApiKey;
 
-    @Value("${usda.api.base-url:https://api.nal.usda.gov/fdc/v1}")
-    private String usdaBaseUrl;
-
     /**
-     * Translate food name to English using OpenAI
+     * USDA ค้นหาแล้วไม่พบอาหารที่ตรงกับชื่อ - ไม่ใช่ความผิดพลาดของ upstream ลองใหม่ก็ได้ผลเหมือนเดิม
      */
-    private String translateWithOpenAI(String foodName) {
-        try {
-            String prompt = String.format(
-                "Translate the following food/ingredient name to English. " +
-                "Return ONLY the English name, nothing else. " +
-                "If it's already in English, return it as is.\n\n" +
-                "Name: %s\n\n" +
-                "English name:",
-                foodName
-            );
-            
-            String response = openAIService.callOpenAI(prompt);
-            return response.trim();
-        } catch (Exception e) {
-            log.error("Error translating with OpenAI: {}", e.getMessage(), e);
-            return null;
+    public static class FoodNotFoundException extends RuntimeException {
+        public FoodNotFoundException(String message) {
+            super(message);
         }
     }
 
     /**
-     * Translate food name to English if needed
-     * This is a simple mapping for common Thai fruits/vegetables
-     * Falls back to OpenAI translation if not found in mapping
+     * true ถ้า error (หรือ cause) คือ {@link FoodNotFoundException}
      */
-    private String translateToEnglish(String foodName) {
-        // Common Thai to English mappings
-        String lowerName = foodName.toLowerCase().trim();
-        
-        // Fruit mappings
-        if (lowerName.contains("กล้วย") || lowerName.equals("banana")) return "banana";
-        if (lowerName.contains("สตรอเบอรี่") || lowerName.contains("สตรอเบอร์รี่") || lowerName.equals("strawberry")) return "strawberry";
-        if (lowerName.contains("เลม่อน") || lowerName.equals("lemon")) return "lemon";
-        if (lowerName.contains("บลูเบอรี่") || lowerName.contains("บลูเบอร์รี่") || lowerName.equals("blueberry")) return "blueberry";
-        if (lowerName.contains("ส้ม") || lowerName.equals("orange")) return "orange";
-        if (lowerName.contains("แอปเปิล") || lowerName.contains("แอปเปิ้ล") || lowerName.equals("apple")) return "apple";
-        if (lowerName.contains("มะนาว") || lowerName.equals("lime")) return "lime";
-        if (lowerName.contains("องุ่น") || lowerName.equals("grape")) return "grape";
-        if (lowerName.contains("กีวี") || lowerName.equals("kiwi")) return "kiwi";
-        if (lowerName.contains("มะม่วง") || lowerName.equals("mango")) return "mango";
-        if (lowerName.contains("สับปะรด") || lowerName.equals("pineapple")) return "pineapple";
-        if (lowerName.contains("แตงโม") || lowerName.equals("watermelon")) return "watermelon";
-        if (lowerName.contains("ลิ้นจี่") || lowerName.equals("lychee")) return "lychee";
-        if (lowerName.contains("ลำไย") || lowerName.equals("longan")) return "longan";
-        if (lowerName.contains("ทุเรียน") || lowerName.equals("durian")) return "durian";
-        if (lowerName.contains("มังคุด") || lowerName.equals("mangosteen")) return "mangosteen";
-        if (lowerName.contains("เงาะ") || lowerName.equals("rambutan")) return "rambutan";
-        if (lowerName.contains("ลิ้นจี่") || lowerName.equals("lychee")) return "lychee";
-        
-        // Vegetable mappings
-        if (lowerName.contains("ผักโขม") || lowerName.equals("spinach")) return "spinach";
-        if (lowerName.contains("ผักแคล") || lowerName.contains("ผักคะน้า") || lowerName.equals("kale")) return "kale";
-        if (lowerName.contains("แครอท") || lowerName.contains("แครอต") || lowerName.equals("carrot")) return "carrot";
-        if (lowerName.contains("บีทรูท") || lowerName.equals("beetroot")) return "beetroot";
-        if (lowerName.contains("แตงกวา") || lowerName.equals("cucumber")) return "cucumber";
-        if (lowerName.contains("บร็อคโคลี่") || lowerName.contains("บร็อคโคลี") || 
-            lowerName.contains("บล็อคโคลี่") || lowerName.contains("บล็อคโคลี") || 
-            lowerName.equals("broccoli")) return "broccoli";
-        if (lowerName.contains("กะหล่ำ") || lowerName.equals("cabbage")) return "cabbage";
-        if (lowerName.contains("ผักกาด") || lowerName.equals("lettuce")) return "lettuce";
-        if (lowerName.contains("มะเขือ") || lowerName.equals("eggplant")) return "eggplant";
-        if (lowerName.contains("พริก") || lowerName.equals("pepper")) return "pepper";
-        if (lowerName.contains("ขิง") || lowerName.equals("ginger")) return "ginger";
-        if (lowerName.contains("กระเทียม") || lowerName.equals("garlic")) return "garlic";
-        if (lowerName.contains("หอม") || lowerName.equals("onion")) return "onion";
-        
-        // Addon mappings
-        if (lowerName.contains("น้ำผึ้ง") || lowerName.equals("honey")) return "honey";
-        if (lowerName.contains("โยเกิร์ต") || lowerName.equals("yogurt")) return "yogurt";
-        if (lowerName.contains("นม") || lowerName.equals("milk")) return "milk";
-        if (lowerName.contains("อโวคาโด") || lowerName.contains("อโวคาโด้") || lowerName.equals("avocado")) return "avocado";
-        if (lowerName.contains("เมล็ดเจีย") || lowerName.equals("chia seeds")) return "chia seeds";
-        if (lowerName.contains("อัลมอนด์") || lowerName.contains("อัลม่อนด์") || lowerName.equals("almond")) return "almond";
-        if (lowerName.contains("เวย์") || lowerName.contains("whey")) return "whey protein";
-        
-        // If already in English or not found in mapping, return as is
-        // Check if it contains only English characters
-        if (foodName.matches("^[a-zA-Z0-9\\s]+$")) {
-            return foodName;
-        }
-        
-        // If Thai name not found in mapping, use OpenAI to translate
-        log.info("Could not find mapping for '{}'. Using OpenAI to translate to English.", foodName);
-        try {
-            String englishName = translateWithOpenAI(foodName);
-            if (englishName != null && !englishName.isEmpty()) {
-                log.info("OpenAI translated '{}' to '{}'", foodName, englishName);
-                return englishName;
+    public static boolean isFoodNotFound(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof FoodNotFoundException) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
             }
-        } catch (Exception e) {
-            log.warn("Failed to translate '{}' with OpenAI: {}. Using original name.", foodName, e.getMessage());
         }
-        
-        // Fallback: return original name
-        return foodName;
+        return false;
     }
 
     /**
@@ -147,14 +83,16 @@ public class USDAService {
             }
             
             // Translate to English if needed
-            String englishName = translateToEnglish(foodName);
+            String englishName = foodNameTranslator.translateToEnglish(foodName);
+            String cacheKey = USDAResponseCache.searchKey(englishName);
+            Optional<JsonNode> cached = responseCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.info("USDA search cache hit for: {} (translated to: {})", foodName, englishName);
+                return cached.get();
+            }
             log.info("Searching USDA API for: {} (translated to: {})", foodName, englishName);
             
-            WebClient webClient = webClientBuilder
-                    .baseUrl(usdaBaseUrl)
-                    .build();
-
-            String response = webClient.get()
+            String response = usdaGuard.call(() -> usdaWebClient.get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/foods/search")
                             .queryParam("query", englishName)
@@ -162,7 +100,8 @@ public class USDAService {
                             .queryParam("pageSize", 1)
                             .build())
                     .retrieve()
-                    .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), 
+                    // 408 / 429 keep the default WebClientResponseException so they count toward the circuit breaker
+                    .onStatus(status -> status.is4xxClientError() && status.value() != 408 && status.value() != 429, 
                             clientResponse -> {
                                 if (clientResponse.statusCode().value() == 403) {
                                     log.error("USDA API 403 Forbidden - Invalid or missing API key. Please check USDA_API_KEY in application.properties");
@@ -174,8 +113,7 @@ public class USDAService {
                                         "USDA API error: " + clientResponse.statusCode()));
                             })
                     .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+                    .block());
 
             if (response == null || response.isEmpty()) {
                 throw new RuntimeException("USDA API returned empty response");
@@ -186,12 +124,13 @@ public class USDAService {
             // Check if we have results
             JsonNode foods = jsonResponse.get("foods");
             if (foods == null || !foods.isArray() || foods.size() == 0) {
-                throw new RuntimeException("No food found for: " + foodName + 
+                throw new FoodNotFoundException("No food found for: " + foodName + 
                         " (searched as: " + englishName + "). " +
                         "Please make sure the ingredient name is correct or try using English name.");
             }
 
             log.info("Found {} results for {} (searched as: {})", foods.size(), foodName, englishName);
+            responseCache.put(cacheKey, jsonResponse);
             return jsonResponse;
 
         } catch (Exception e) {
@@ -206,22 +145,21 @@ public class USDAService {
      * @return JSON response containing detailed nutrient information
      */
     public JsonNode getFoodDetails(Integer fdcId) {
+        Optional<JsonNode> cached = responseCache.get(USDAResponseCache.foodKey(fdcId));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
         try {
             log.info("Fetching USDA food details for fdcId: {}", fdcId);
             
-            WebClient webClient = webClientBuilder
-                    .baseUrl(usdaBaseUrl)
-                    .build();
-
-            String response = webClient.get()
+            String response = usdaGuard.call(() -> usdaWebClient.get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/food/{fdcId}")
                             .queryParam("api_key", usdaApiKey)
                             .build(fdcId))
                     .retrieve()
                     .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+                    .block());
 
             if (response == null || response.isEmpty()) {
                 throw new RuntimeException("USDA API returned empty response for fdcId: " + fdcId);
@@ -229,6 +167,7 @@ public class USDAService {
 
             JsonNode jsonResponse = objectMapper.readTree(response);
             log.info("Successfully fetched food details for fdcId: {}", fdcId);
+            responseCache.put(USDAResponseCache.foodKey(fdcId), jsonResponse);
             return jsonResponse;
 
         } catch (Exception e) {
@@ -237,6 +176,82 @@ public class USDAService {
         }
     }
 
+    /**
+     * Get detailed food information for several fdcIds in one call (GET /foods).
+     * USDA accepts at most {@value #MAX_FDC_IDS_PER_REQUEST} ids per request, so larger
+     * lists are split into chunks. Cached ids are served locally and only the rest are requested.
+     * Ids that USDA does not return are simply absent from the map.
+     * @param fdcIds The FoodData Central IDs
+     * @return Map of fdcId to detailed food JSON (same shape as {@link #getFoodDetails(Integer)})
+     */
+    public Map<Integer, JsonNode> getFoodsDetails(List<Integer> fdcIds) {
+        Map<Integer, JsonNode> result = new LinkedHashMap<>();
+        if (fdcIds == null || fdcIds.isEmpty()) {
+            return result;
+        }
+
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer fdcId : new LinkedHashSet<>(fdcIds)) {
+            Optional<JsonNode> cached = responseCache.get(USDAResponseCache.foodKey(fdcId));
+            if (cached.isPresent()) {
+                result.put(fdcId, cached.get());
+            } else {
+                missingIds.add(fdcId);
+            }
+        }
+
+        for (int from = 0; from < missingIds.size(); from += MAX_FDC_IDS_PER_REQUEST) {
+            List<Integer> chunk = missingIds.subList(from, Math.min(from + MAX_FDC_IDS_PER_REQUEST, missingIds.size()));
+            String ids = chunk.stream().map(String::valueOf).collect(Collectors.joining(","));
+            try {
+                log.info("Fetching USDA food details for {} fdcIds", chunk.size());
+
+                String response = usdaGuard.call(() -> usdaWebClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/foods")
+                                .queryParam("fdcIds", ids)
+                                .queryParam("api_key", usdaApiKey)
+                                .build())
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .block());
+
+                if (response == null || response.isEmpty()) {
+                    throw new RuntimeException("USDA API returned empty response for fdcIds: " + ids);
+                }
+
+                JsonNode foods = objectMapper.readTree(response);
+                if (foods.isArray()) {
+                    for (JsonNode food : foods) {
+                        if (food.has("fdcId")) {
+                            int fdcId = food.get("fdcId").asInt();
+                            result.put(fdcId, food);
+                            responseCache.put(USDAResponseCache.foodKey(fdcId), food);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error fetching USDA food details for fdcIds {}: {}", ids, e.getMessage(), e);
+                throw new RuntimeException("Failed to fetch USDA food details: " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * false while the USDA circuit breaker is open, i.e. calls would be rejected without reaching USDA
+     */
+    public boolean isAvailable() {
+        return usdaGuard.isCallPermitted();
+    }
+
+    /**
+     * How many times the USDA circuit breaker has closed again after being open (see {@link UpstreamGuard#getTimesClosed()})
+     */
+    public long getBreakerClosings() {
+        return usdaGuard.getTimesClosed();
+    }
+
     /**
      * Get fdcId from search results
      * @param searchResponse The search response JSON
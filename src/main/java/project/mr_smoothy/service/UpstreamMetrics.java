@@ -0,0 +1,162 @@
+package project.mr_smoothy.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import project.mr_smoothy.dto.response.UpstreamStatsResponse;
+import project.mr_smoothy.util.UpstreamGuard;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-upstream call counters for the shared WebClients (USDA, OpenAI).
+ * Each client gets {@link #filter(String)} as an exchange filter; latency is measured
+ * until the response headers arrive and kept in fixed buckets so percentiles stay cheap.
+ * Circuit breaker / bulkhead state of the upstream's {@link UpstreamGuard} is reported alongside.
+ * Exposed at GET /api/admin/dashboard/upstreams.
+ */
+@Component
+public class UpstreamMetrics {
+
+    /** Upper bounds (ms) of the latency buckets; the last bucket is open-ended. */
+    private static final long[] BUCKET_BOUNDS_MS = {25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Exchange filter that records calls made through a client as {@code upstream}.
+     * 4xx/5xx responses and transport errors count as errors; calls cancelled by a
+     * caller-side timeout count as timeouts.
+     */
+    public ExchangeFilterFunction filter(String upstream) {
+        Counters c = counters(upstream);
+        return (request, next) -> {
+            long start = System.nanoTime();
+            c.inFlight.incrementAndGet();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (response.statusCode().isError()) {
+                            c.errors.increment();
+                        }
+                    })
+                    .doOnError(e -> c.errors.increment())
+                    .doFinally(signal -> {
+                        c.inFlight.decrementAndGet();
+                        if (signal == SignalType.CANCEL) {
+                            c.timeouts.increment();
+                        }
+                        c.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    });
+        };
+    }
+
+    /**
+     * Registers the pool size shown next to an upstream's counters
+     */
+    public void registerPool(String upstream, int maxConnections) {
+        counters(upstream).maxConnections = maxConnections;
+    }
+
+    /**
+     * Registers the circuit breaker / bulkhead reported for {@link UpstreamGuard#getName()}
+     */
+    public void registerGuard(UpstreamGuard guard) {
+        counters(guard.getName()).guard = guard;
+    }
+
+    public List<UpstreamStatsResponse> snapshot() {
+        List<UpstreamStatsResponse> result = new ArrayList<>();
+        counters.forEach((upstream, c) -> result.add(c.toResponse(upstream)));
+        result.sort((a, b) -> a.getUpstream().compareTo(b.getUpstream()));
+        return result;
+    }
+
+    private Counters counters(String upstream) {
+        return counters.computeIfAbsent(upstream, k -> new Counters());
+    }
+
+    private static final class Counters {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder totalLatencyMs = new LongAdder();
+        final LongAccumulator maxLatencyMs = new LongAccumulator(Long::max, 0);
+        final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile int maxConnections;
+        volatile UpstreamGuard guard;
+
+        Counters() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long latencyMs) {
+            requests.increment();
+            totalLatencyMs.add(latencyMs);
+            maxLatencyMs.accumulate(latencyMs);
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MS.length && latencyMs > BUCKET_BOUNDS_MS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+        }
+
+        /** Upper bound of the bucket holding the given quantile (max latency for the open bucket) */
+        long percentile(double quantile, long[] counts, long total) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : maxLatencyMs.get();
+                }
+            }
+            return maxLatencyMs.get();
+        }
+
+        UpstreamStatsResponse toResponse(String upstream) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long requestCount = requests.sum();
+            UpstreamStatsResponse.UpstreamStatsResponseBuilder response = UpstreamStatsResponse.builder()
+                    .upstream(upstream)
+                    .requests(requestCount)
+                    .errors(errors.sum())
+                    .timeouts(timeouts.sum())
+                    .inFlight(inFlight.get())
+                    .maxConnections(maxConnections)
+                    .avgLatencyMs(requestCount == 0 ? 0 : (double) totalLatencyMs.sum() / requestCount)
+                    .maxLatencyMs(maxLatencyMs.get())
+                    .p50LatencyMs(percentile(0.50, counts, total))
+                    .p95LatencyMs(percentile(0.95, counts, total))
+                    .p99LatencyMs(percentile(0.99, counts, total));
+            UpstreamGuard g = guard;
+            if (g != null) {
+                response.circuitState(g.getState().name())
+                        .failureRate(g.getFailureRate())
+                        .bulkheadAvailable(g.getAvailableSlots())
+                        .bulkheadMaxConcurrent(g.getMaxConcurrent())
+                        .shortCircuited(g.getShortCircuited())
+                        .bulkheadRejected(g.getBulkheadRejected())
+                        .timesOpened(g.getTimesOpened());
+            }
+            return response.build();
+        }
+    }
+}
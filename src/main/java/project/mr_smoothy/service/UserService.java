@@ -11,6 +11,7 @@ import project.mr_smoothy.dto.response.UserResponse;
 import project.mr_smoothy.entity.User;
 import project.mr_smoothy.repository.UserRepository;
 import project.mr_smoothy.util.AuthUtil;
+import project.mr_smoothy.util.UserPrincipalCache;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -24,6 +25,8 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthUtil authUtil;
+    private final DashboardStatsEngine dashboardStatsEngine;
+    private final UserPrincipalCache userPrincipalCache;
 
     public List<UserResponse> getAllUsers() {
         log.info("Fetching all users");
@@ -58,6 +61,7 @@ public class UserService {
         user.setRole(User.UserRole.USER);
 
         User savedUser = userRepository.save(user);
+        dashboardStatsEngine.recordUserRegistered(savedUser);
         log.info("User created successfully with id: {}", savedUser.getId());
         
         return convertToResponse(savedUser);
@@ -99,6 +103,8 @@ public class UserService {
         updateUserFields(user, request);
         
         User savedUser = userRepository.save(user);
+        // ข้อมูล user เปลี่ยน - ให้ request ถัดไปโหลด principal ใหม่ (UserPrincipalEvictionListener evict อีกครั้งตอน flush / หลัง commit)
+        userPrincipalCache.evictAfterCommit(savedUser.getUsername());
         log.info("User profile updated successfully for user: {}", savedUser.getUsername());
         
         return convertToResponse(savedUser);
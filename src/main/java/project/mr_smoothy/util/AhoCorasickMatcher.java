@@ -0,0 +1,86 @@
+package project.mr_smoothy.util;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho–Corasick automaton สำหรับหา substring หลายแบบในการอ่านข้อความรอบเดียว
+ * แต่ละ pattern มี priority (เลขน้อย = สำคัญกว่า) และ {@link #bestMatch(String)}
+ * คืน priority ที่น้อยที่สุดในบรรดา pattern ที่พบ - เท่ากับการไล่ตรวจ contains() ตามลำดับกฎ
+ * สร้างครั้งเดียวแล้วใช้ได้จากหลาย thread (read-only)
+ */
+public final class AhoCorasickMatcher {
+
+    public static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final Node root = new Node();
+
+    public AhoCorasickMatcher(Map<String, Integer> patterns) {
+        patterns.forEach(this::add);
+        buildFailureLinks();
+    }
+
+    /**
+     * @return priority ที่น้อยที่สุดของ pattern ที่พบใน text หรือ {@link #NO_MATCH}
+     */
+    public int bestMatch(String text) {
+        int best = NO_MATCH;
+        Node node = root;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            while (node != root && !node.children.containsKey(ch)) {
+                node = node.fail;
+            }
+            node = node.children.getOrDefault(ch, root);
+            best = Math.min(best, node.best);
+        }
+        return best;
+    }
+
+    private void add(String pattern, int priority) {
+        if (pattern.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            node = node.children.computeIfAbsent(pattern.charAt(i), c -> new Node());
+        }
+        node.best = Math.min(node.best, priority);
+    }
+
+    /**
+     * BFS: fail ของแต่ละ node ชี้ไป suffix ที่ยาวที่สุดที่เป็น prefix ของ pattern อื่น
+     * และ best รวม priority ของทุก pattern ที่จบที่ suffix นั้นไว้ล่วงหน้า
+     */
+    private void buildFailureLinks() {
+        Queue<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.children.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                char ch = entry.getKey();
+                Node child = entry.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.children.containsKey(ch)) {
+                    fail = fail.fail;
+                }
+                Node target = fail.children.get(ch);
+                child.fail = target != null && target != child ? target : root;
+                child.best = Math.min(child.best, child.fail.best);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private Node fail;
+        private int best = NO_MATCH;
+    }
+}
@@ -12,25 +12,49 @@ import project.mr_smoothy.repository.UserRepository;
 @Component
 @RequiredArgsConstructor
 public class AuthUtil {
+
+    /**
+     * Request attribute ที่ interceptor ใส่ principal ที่ยืนยันแล้วไว้ (ใช้ได้ตลอด request นั้น)
+     */
+    public static final String PRINCIPAL_ATTRIBUTE = AuthUtil.class.getName() + ".PRINCIPAL";
     
     private final JwtTokenUtil jwtTokenUtil;
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
     
+    /**
+     * คืน user ปัจจุบันเป็น reference ตาม id (ไม่ query จนกว่าจะอ่าน field อื่นนอกจาก id)
+     */
     public User getCurrentUser() {
+        return userRepository.getReferenceById(getCurrentPrincipal().id());
+    }
+
+    /**
+     * คืน principal ของ request ปัจจุบัน ใช้ค่าที่ interceptor resolve ไว้แล้วถ้ามี
+     */
+    public UserPrincipal getCurrentPrincipal() {
         HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        Object resolved = request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (resolved instanceof UserPrincipal principal) {
+            return principal;
+        }
+
         String token = extractTokenFromRequest(request);
         
         if (token == null) {
             throw new RuntimeException("Authentication required. Please login.");
         }
         
+        UserPrincipal principal;
         try {
             String username = jwtTokenUtil.getUsernameFromToken(token);
-            return userRepository.findByUsername(username)
+            principal = userPrincipalCache.resolve(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
         } catch (Exception e) {
             throw new RuntimeException("Invalid or expired token");
         }
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        return principal;
     }
     
     private String extractTokenFromRequest(HttpServletRequest request) {
@@ -41,4 +65,3 @@ public class AuthUtil {
         return null;
     }
 }
-
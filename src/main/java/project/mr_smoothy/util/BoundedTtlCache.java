@@ -0,0 +1,84 @@
+package project.mr_smoothy.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache ขนาดจำกัดแบบ LRU ที่แต่ละ entry มีเวลาหมดอายุของตัวเอง
+ * ใช้แทนการ query / คำนวณซ้ำในข้อมูลที่เปลี่ยนไม่บ่อย (thread-safe)
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long defaultTtlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public BoundedTtlCache(int maxSize, long defaultTtlMillis) {
+        this(maxSize, defaultTtlMillis, System::currentTimeMillis);
+    }
+
+    public BoundedTtlCache(int maxSize, long defaultTtlMillis, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > BoundedTtlCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * คืนค่าที่ cache ไว้ หรือ null ถ้าไม่มี / หมดอายุแล้ว
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= clock.getAsLong()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * เก็บค่าโดยใช้ TTL ตั้งต้นของ cache
+     */
+    public void put(K key, V value) {
+        put(key, value, clock.getAsLong() + defaultTtlMillis);
+    }
+
+    /**
+     * เก็บค่าพร้อมเวลาหมดอายุที่ระบุเอง (epoch millis) เช่นเวลาหมดอายุของ token
+     */
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= clock.getAsLong()) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
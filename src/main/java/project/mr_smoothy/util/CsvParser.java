@@ -0,0 +1,88 @@
+package project.mr_smoothy.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV parser ขนาดเล็กสำหรับไฟล์นำเข้าข้อมูล (RFC 4180)
+ * รองรับ field ในเครื่องหมายคำพูด, "" แทน " และการขึ้นบรรทัดใหม่ภายใน field
+ * แถวแรกเป็น header (ตัดช่องว่างและแปลงเป็นตัวพิมพ์เล็ก)
+ */
+public final class CsvParser {
+
+    private CsvParser() {
+    }
+
+    /**
+     * @return หนึ่ง map ต่อแถวข้อมูล (header -> value) ข้ามแถวว่าง
+     */
+    public static List<Map<String, String>> parse(String text) {
+        List<List<String>> records = readRecords(text == null ? "" : text);
+        List<Map<String, String>> rows = new ArrayList<>();
+        if (records.isEmpty()) {
+            return rows;
+        }
+
+        List<String> header = records.get(0).stream()
+                .map(h -> h.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                .toList();
+        for (int r = 1; r < records.size(); r++) {
+            List<String> record = records.get(r);
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int c = 0; c < header.size(); c++) {
+                row.put(header.get(c), c < record.size() ? record.get(c).trim() : "");
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<List<String>> readRecords(String text) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n' || ch == '\r') {
+                if (ch == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+            } else {
+                field.append(ch);
+            }
+        }
+        if (field.length() > 0 || !record.isEmpty()) {
+            record.add(field.toString());
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -1,15 +1,21 @@
 package project.mr_smoothy.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -27,6 +33,29 @@ public class JwtTokenUtil {
     @Value("${jwt.expiration:86400000}")
     private Long expiration;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * Cache ของ claims ที่ตรวจ signature แล้ว key คือ SHA-256 ของ token และหมดอายุพร้อม token
+     */
+    private BoundedTtlCache<String, Claims> verifiedClaims;
+
+    /**
+     * สร้าง key และ parser ครั้งเดียว (JwtParser เป็น immutable ใช้ร่วมกันได้ทุก thread)
+     */
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedClaims = new BoundedTtlCache<>(claimsCacheMaxSize, expiration);
+    }
+
     /**
      * สร้าง Token จาก username
      */
@@ -87,28 +116,47 @@ public class JwtTokenUtil {
 
     /**
      * ดึง claims ทั้งหมดจาก token
+     * ตรวจ signature ครั้งแรกครั้งเดียว จากนั้นใช้ claims จาก cache จนกว่า token จะหมดอายุ
      */
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String key = hash(token);
+        Claims cached = verifiedClaims.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(key, claims, claims.getExpiration().getTime());
+        }
+        return claims;
     }
 
     /**
      * Validate token
      */
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = getUsernameFromToken(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        try {
+            final Claims claims = getAllClaimsFromToken(token);
+            return claims.getSubject().equals(username) && !claims.getExpiration().before(new Date());
+        } catch (Exception e) {
+            return false;
+        }
     }
 
     /**
      * Get signing key
      */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
 
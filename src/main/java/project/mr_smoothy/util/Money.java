@@ -0,0 +1,57 @@
+package project.mr_smoothy.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * คำนวณเงินเป็นหน่วยย่อย (สตางค์) ด้วย long แทน BigDecimal ในส่วนที่คำนวณบ่อย
+ * เช่นราคาสินค้า ยอดรวม order และยอดขายใน dashboard
+ * แปลงเป็น BigDecimal เฉพาะตอนบันทึกลง entity หรือส่งออกเป็น JSON
+ */
+public final class Money {
+
+    /**
+     * จำนวนตำแหน่งทศนิยมของหน่วยเงิน (บาท.สตางค์)
+     */
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * แปลง BigDecimal เป็นหน่วยย่อย (ปัดเศษ HALF_UP, null = 0)
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * แปลงหน่วยย่อยกลับเป็น BigDecimal (scale 2) สำหรับ entity / response
+     */
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long times(long minor, long quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+
+    /**
+     * คิดเปอร์เซ็นต์ของจำนวนเงิน (ปัดเศษครึ่งขึ้นเป็นหน่วยย่อย)
+     */
+    public static long percentOf(long minor, int percent) {
+        long product = Math.multiplyExact(minor, (long) percent);
+        return product >= 0 ? (product + 50) / 100 : -((-product + 50) / 100);
+    }
+}
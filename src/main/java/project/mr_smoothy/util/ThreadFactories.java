@@ -0,0 +1,29 @@
+package project.mr_smoothy.util;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ThreadFactory สำหรับ pool ภายในของ service (enrichment, USDA bulk, smoothy analysis)
+ * เมื่อเปิด spring.threads.virtual.enabled (ต้องรันบน Java 21) จะสร้าง virtual thread แทน
+ * ขนาด pool ยังเป็นตัวจำกัดจำนวนงานพร้อมกันเหมือนเดิม
+ */
+public final class ThreadFactories {
+
+    private ThreadFactories() {
+    }
+
+    public static ThreadFactory named(String prefix, boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,304 @@
+package project.mr_smoothy.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker + semaphore bulkhead สำหรับการเรียก upstream หนึ่งตัว (USDA, OpenAI)
+ * <ul>
+ *   <li>bulkhead: เรียกพร้อมกันได้ไม่เกิน maxConcurrent ถ้ารอ permit นานกว่า maxWaitMs จะถูกปฏิเสธทันที</li>
+ *   <li>CLOSED: นับผลของ windowSize ครั้งล่าสุด ถ้า failure rate ถึง threshold (และมีอย่างน้อย minimumCalls) จะเปิดวงจร</li>
+ *   <li>OPEN: ปฏิเสธทุกการเรียกจนครบ openMillis แล้วเข้า HALF_OPEN</li>
+ *   <li>HALF_OPEN: ปล่อย probe ได้ halfOpenProbes ครั้ง สำเร็จครบจึงกลับเป็น CLOSED ล้มเหลวครั้งเดียวกลับเป็น OPEN</li>
+ * </ul>
+ * การถูกปฏิเสธจะโยน {@link RejectedException} (thread-safe)
+ */
+@Slf4j
+public class UpstreamGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * upstream ไม่พร้อมใช้งาน (วงจรเปิดอยู่ หรือ bulkhead เต็ม) - ไม่ได้เรียก upstream จริง
+     */
+    public static class RejectedException extends RuntimeException {
+        private final boolean bulkheadFull;
+        private final long closedGeneration;
+
+        public RejectedException(String message) {
+            this(message, false, 0);
+        }
+
+        public RejectedException(String message, boolean bulkheadFull, long closedGeneration) {
+            super(message);
+            this.bulkheadFull = bulkheadFull;
+            this.closedGeneration = closedGeneration;
+        }
+
+        /**
+         * true ถ้าถูกปฏิเสธเพราะ bulkhead เต็ม (วงจรยังปิดอยู่)
+         */
+        public boolean isBulkheadFull() {
+            return bulkheadFull;
+        }
+
+        /**
+         * ค่า {@link #getTimesClosed()} ตอนถูกปฏิเสธ - ค่าที่มากกว่านี้แปลว่าวงจรกลับมาปิดแล้ว
+         */
+        public long getClosedGeneration() {
+            return closedGeneration;
+        }
+    }
+
+    private static final long NOT_A_PROBE = -1;
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Semaphore bulkhead;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenProbes;
+    private final Predicate<Throwable> isFailure;
+    private final LongSupplier clock;
+
+    // guarded by this
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long probeGeneration;
+    private int probesStarted;
+    private int probeSuccesses;
+    private long timesClosed;
+
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    public UpstreamGuard(String name, int maxConcurrent, long maxWaitMs, int windowSize, int minimumCalls,
+                         int failureRateThreshold, long openMillis, int halfOpenProbes,
+                         Predicate<Throwable> isFailure) {
+        this(name, maxConcurrent, maxWaitMs, windowSize, minimumCalls, failureRateThreshold, openMillis,
+                halfOpenProbes, isFailure, System::currentTimeMillis);
+    }
+
+    public UpstreamGuard(String name, int maxConcurrent, long maxWaitMs, int windowSize, int minimumCalls,
+                         int failureRateThreshold, long openMillis, int halfOpenProbes,
+                         Predicate<Throwable> isFailure, LongSupplier clock) {
+        if (maxConcurrent <= 0 || windowSize <= 0 || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("maxConcurrent, windowSize and halfOpenProbes must be positive");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.bulkhead = new Semaphore(maxConcurrent, true);
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+        this.isFailure = isFailure;
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * เรียก action ผ่าน breaker และ bulkhead
+     *
+     * @throws RejectedException ถ้าวงจรเปิดอยู่หรือ bulkhead เต็ม
+     */
+    public <T> T call(Supplier<T> action) {
+        long probe = acquirePermission();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseProbe(probe);
+            throw new RejectedException(name + " call was interrupted while waiting for a slot", true, getTimesClosed());
+        }
+        if (!acquired) {
+            releaseProbe(probe);
+            bulkheadRejected.increment();
+            throw new RejectedException(name + " is busy (" + maxConcurrent + " calls in flight)", true, getTimesClosed());
+        }
+
+        boolean failed = true;
+        try {
+            T result = action.get();
+            failed = false;
+            return result;
+        } catch (RuntimeException e) {
+            failed = isFailure.test(e);
+            throw e;
+        } finally {
+            bulkhead.release();
+            onResult(probe, failed);
+        }
+    }
+
+    /**
+     * true ถ้าการเรียกครั้งถัดไปจะไม่ถูกปฏิเสธโดย breaker (ไม่รวม bulkhead)
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> clock.getAsLong() - openedAt >= openMillis;
+            case HALF_OPEN -> probesStarted < halfOpenProbes;
+        };
+    }
+
+    /**
+     * true ถ้า error (หรือ cause) มาจากการถูก breaker / bulkhead ปฏิเสธ
+     */
+    public static boolean isRejection(Throwable error) {
+        return findRejection(error) != null;
+    }
+
+    /**
+     * {@link RejectedException} ใน error หรือ cause หรือ null ถ้าไม่มี
+     */
+    public static RejectedException findRejection(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof RejectedException rejected) {
+                return rejected;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailableSlots() {
+        return bulkhead.availablePermits();
+    }
+
+    public long getShortCircuited() {
+        return shortCircuited.sum();
+    }
+
+    public long getBulkheadRejected() {
+        return bulkheadRejected.sum();
+    }
+
+    public long getTimesOpened() {
+        return timesOpened.sum();
+    }
+
+    /**
+     * จำนวนครั้งที่วงจรกลับจาก HALF_OPEN เป็น CLOSED
+     */
+    public synchronized long getTimesClosed() {
+        return timesClosed;
+    }
+
+    /**
+     * @return generation ของ half-open probe หรือ NOT_A_PROBE สำหรับการเรียกปกติ
+     */
+    private synchronized long acquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openMillis) {
+                shortCircuited.increment();
+                throw new RejectedException(name + " is temporarily unavailable (circuit open)", false, timesClosed);
+            }
+            state = State.HALF_OPEN;
+            probeGeneration++;
+            probesStarted = 0;
+            probeSuccesses = 0;
+            log.info("{} circuit half-open, probing with up to {} calls", name, halfOpenProbes);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                shortCircuited.increment();
+                throw new RejectedException(name + " is temporarily unavailable (circuit half-open)", false, timesClosed);
+            }
+            probesStarted++;
+            return probeGeneration;
+        }
+        return NOT_A_PROBE;
+    }
+
+    private synchronized void releaseProbe(long probe) {
+        if (probe != NOT_A_PROBE && state == State.HALF_OPEN && probe == probeGeneration) {
+            probesStarted--;
+        }
+    }
+
+    private synchronized void onResult(long probe, boolean failed) {
+        if (probe != NOT_A_PROBE) {
+            if (state != State.HALF_OPEN || probe != probeGeneration) {
+                return;
+            }
+            if (failed) {
+                open();
+            } else if (++probeSuccesses >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            // ผลของการเรียกที่เริ่มก่อนวงจรเปิด
+            return;
+        }
+        if (windowCount == windowSize) {
+            if (window[windowPosition]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPosition] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowPosition = (windowPosition + 1) % windowSize;
+
+        if (windowCount >= minimumCalls && windowFailures * 100L >= (long) failureRateThreshold * windowCount) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        timesOpened.increment();
+        log.warn("{} circuit opened for {} ms (failures {}/{})", name, openMillis, windowFailures, windowCount);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        timesClosed++;
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        log.info("{} circuit closed", name);
+    }
+}
@@ -0,0 +1,17 @@
+package project.mr_smoothy.util;
+
+import project.mr_smoothy.entity.User;
+
+/**
+ * ข้อมูลผู้ใช้ที่ยืนยันตัวตนแล้ว (เฉพาะที่ต้องใช้ตรวจสิทธิ์) สำหรับเก็บใน cache และ request attribute
+ */
+public record UserPrincipal(Long id, String username, User.UserRole role) {
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return role == User.UserRole.ADMIN;
+    }
+}
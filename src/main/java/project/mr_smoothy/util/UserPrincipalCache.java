@@ -0,0 +1,65 @@
+package project.mr_smoothy.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.mr_smoothy.repository.UserRepository;
+
+import java.util.Optional;
+
+/**
+ * Cache ของ principal ตาม username เพื่อไม่ต้อง query user ทุก request ที่ต้อง login
+ * ต้อง evict เมื่อข้อมูลผู้ใช้หรือ role เปลี่ยน ({@link UserPrincipalEvictionListener} ทำให้ทุกครั้งที่แถว users ถูกแก้ไข / ลบ)
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final BoundedTtlCache<String, UserPrincipal> cache;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              @Value("${auth.principal-cache.max-size:10000}") int maxSize,
+                              @Value("${auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.cache = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * หา principal จาก cache ก่อน ถ้าไม่มีจึง query จาก database (ไม่ cache กรณีไม่พบ user)
+     */
+    public Optional<UserPrincipal> resolve(String username) {
+        UserPrincipal cached = cache.get(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<UserPrincipal> loaded = userRepository.findByUsername(username).map(UserPrincipal::of);
+        loaded.ifPresent(principal -> cache.put(username, principal));
+        return loaded;
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            log.debug("Evicting cached principal for user: {}", username);
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * evict ทันทีและอีกครั้งหลัง commit - request อื่นที่โหลด principal ระหว่างที่ transaction
+     * ยังไม่ commit จะได้ค่าเก่าและ cache ไว้จนหมด TTL ถ้า evict เพียงครั้งเดียว
+     */
+    public void evictAfterCommit(String username) {
+        evict(username);
+        if (username != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package project.mr_smoothy.util;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import project.mr_smoothy.entity.User;
+
+/**
+ * JPA listener ของ {@link User}: evict principal ที่ cache ไว้ทุกครั้งที่แถวผู้ใช้ถูกแก้ไขหรือลบ
+ * (เปลี่ยน role, ปิดการใช้งาน, ลบผู้ใช้ หรือแก้โปรไฟล์) ไม่ว่าจะมาจาก service ไหน
+ * Hibernate สร้าง listener ผ่าน Spring bean container ตอนสร้าง EntityManagerFactory
+ * จึงรับ cache แบบ lazy (cache ใช้ UserRepository ซึ่งต้องรอ EntityManagerFactory)
+ */
+@Component
+@RequiredArgsConstructor
+public class UserPrincipalEvictionListener {
+
+    private final ObjectProvider<UserPrincipalCache> userPrincipalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        userPrincipalCache.ifAvailable(cache -> cache.evictAfterCommit(user.getUsername()));
+    }
+}
@@ -0,0 +1,112 @@
+package project.mr_smoothy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import project.mr_smoothy.entity.Order;
+import project.mr_smoothy.entity.User;
+import project.mr_smoothy.repository.OrderRepository;
+import project.mr_smoothy.repository.UserRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * DashboardStatsEngine commit callbacks that race a rebuild
+ */
+class DashboardStatsEngineTests {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private DashboardStatsEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // The seed saw order 7 (already cancelled) and order 11; order 10 was still uncommitted
+        OrderRepository.DailyOrderTotals today = mock(OrderRepository.DailyOrderTotals.class);
+        when(today.getDay()).thenReturn(LocalDate.now());
+        when(today.getOrderCount()).thenReturn(1L);
+        when(today.getRevenue()).thenReturn(new BigDecimal("100.00"));
+
+        when(orderRepository.findMaxId()).thenReturn(11L);
+        when(orderRepository.sumOrdersByDay(any(), anyLong())).thenReturn(List.of(today));
+        List<OrderRepository.RecentOrderStatus> recent =
+                List.of(recent(7L, Order.OrderStatus.CANCELLED), recent(11L, Order.OrderStatus.PENDING));
+        when(orderRepository.findStatusesUpdatedSince(any(), anyLong())).thenReturn(recent);
+        when(userRepository.findMaxId()).thenReturn(5L);
+        when(userRepository.findIdsCreatedSince(any(), anyLong())).thenReturn(List.of(5L));
+
+        engine = new DashboardStatsEngine(orderRepository, userRepository);
+        engine.rebuild();
+    }
+
+    @Test
+    void orderBelowTheMaxIdThatCommitsAfterTheSeedIsCounted() {
+        engine.recordOrderPlaced(order(10L, Order.OrderStatus.PENDING, "50.00"));
+
+        assertThat(engine.snapshot().getTotalOrders()).isEqualTo(2);
+        assertThat(engine.snapshot().getRevenue()).isEqualTo(15000);
+    }
+
+    @Test
+    void orderTheSeedAlreadyReadIsNotCountedAgain() {
+        engine.recordOrderPlaced(order(11L, Order.OrderStatus.PENDING, "100.00"));
+
+        assertThat(engine.snapshot().getTotalOrders()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelCommittedBeforeTheSeedIsNotAppliedTwice() {
+        engine.recordStatusChange(order(7L, Order.OrderStatus.CANCELLED, "30.00"), Order.OrderStatus.PENDING);
+
+        assertThat(engine.snapshot().getTotalOrders()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelCommittedAfterTheSeedIsApplied() {
+        engine.recordStatusChange(order(11L, Order.OrderStatus.CANCELLED, "100.00"), Order.OrderStatus.PENDING);
+
+        assertThat(engine.snapshot().getTotalOrders()).isZero();
+        assertThat(engine.snapshot().getRevenue()).isZero();
+    }
+
+    @Test
+    void userTheSeedAlreadyCountedIsNotCountedAgain() {
+        User seen = new User();
+        seen.setId(5L);
+        seen.setCreatedAt(LocalDateTime.now());
+        User racing = new User();
+        racing.setId(4L);
+        racing.setCreatedAt(LocalDateTime.now());
+
+        // the seed read no per-day rows here, so only the racing registration moves the total
+        engine.recordUserRegistered(seen);
+        engine.recordUserRegistered(racing);
+
+        assertThat(engine.snapshot().getTotalUsers()).isEqualTo(1);
+    }
+
+    private static OrderRepository.RecentOrderStatus recent(Long id, Order.OrderStatus status) {
+        OrderRepository.RecentOrderStatus row = mock(OrderRepository.RecentOrderStatus.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getStatus()).thenReturn(status);
+        return row;
+    }
+
+    private static Order order(Long id, Order.OrderStatus status, String total) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setTotalPrice(new BigDecimal(total));
+        order.setCreatedAt(LocalDateTime.now());
+        return order;
+    }
+}
@@ -0,0 +1,167 @@
+package project.mr_smoothy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import project.mr_smoothy.dto.request.IngredientAddRequest;
+import project.mr_smoothy.dto.response.IngredientImportResponse;
+import project.mr_smoothy.dto.response.IngredientImportResponse.RowStatus;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.repository.FruitRepository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * IngredientImportService with a fake JDBC batch insert that enforces unique ingredient names
+ */
+class IngredientImportServiceTests {
+
+    private final FruitRepository fruitRepository = mock(FruitRepository.class);
+    private final NutritionEnrichmentService enrichmentService = mock(NutritionEnrichmentService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    /** names already in the table, including ones written by a concurrent import */
+    private final Set<String> storedNames = new HashSet<>();
+    private final List<String> storedStatuses = new ArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(100);
+    private int batchCalls;
+
+    private IngredientImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        when(fruitRepository.findAllNames()).thenReturn(List.of("Banana"));
+        when(enrichmentService.isConfigured()).thenReturn(true);
+        doAnswer(invocation -> insertBatch(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                        any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        importService = new IngredientImportService(fruitRepository, enrichmentService, jdbcTemplate,
+                mock(PlatformTransactionManager.class), eventPublisher, 500);
+    }
+
+    @Test
+    void csvRowsAreValidatedInsertedAndQueuedForEnrichment() {
+        IngredientImportResponse response = importService.importCsv(
+                "name,pricePerUnit,fetchNutrition\n" +
+                "Mango,20,\n" +
+                "banana,10,\n" +
+                ",5,\n" +
+                "Kiwi,-1,\n" +
+                "Lime,8,false\n" +
+                "mango,20,\n");
+
+        assertThat(response.getRows()).extracting(IngredientImportResponse.RowResult::getStatus)
+                .containsExactly(RowStatus.CREATED, RowStatus.SKIPPED, RowStatus.INVALID, RowStatus.INVALID,
+                        RowStatus.CREATED, RowStatus.SKIPPED);
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getSkipped()).isEqualTo(2);
+        assertThat(response.getInvalid()).isEqualTo(2);
+        assertThat(response.getDuplicate()).isZero();
+
+        IngredientImportResponse.RowResult mango = response.getRows().get(0);
+        IngredientImportResponse.RowResult lime = response.getRows().get(4);
+        assertThat(mango.getNutritionStatus()).isEqualTo(Fruit.NutritionStatus.PENDING);
+        assertThat(lime.getNutritionStatus()).isEqualTo(Fruit.NutritionStatus.NONE);
+        assertThat(storedStatuses).containsExactly("PENDING", "NONE");
+        // only the row that asked for nutrition data goes to the queue; no USDA call during the request
+        verify(enrichmentService).requestEnrichment(List.of(mango.getId()));
+    }
+
+    @Test
+    void nameTakenByConcurrentImportIsReportedAsDuplicate() {
+        // another import commits "Mango" after this one read the existing names
+        storedNames.add("Mango");
+
+        IngredientImportResponse response = importService.importIngredients(List.of(
+                request("Apple"), request("Mango"), request("Pear")));
+
+        assertThat(response.getRows()).extracting(IngredientImportResponse.RowResult::getStatus)
+                .containsExactly(RowStatus.CREATED, RowStatus.DUPLICATE, RowStatus.CREATED);
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getDuplicate()).isEqualTo(1);
+        assertThat(response.getRows().get(1).getId()).isNull();
+        // failed batch, then one insert per row
+        assertThat(batchCalls).isEqualTo(4);
+        verify(enrichmentService).requestEnrichment(List.of(
+                response.getRows().get(0).getId(), response.getRows().get(2).getId()));
+    }
+
+    @Test
+    void rowsStayNoneWhenUsdaIsNotConfigured() {
+        when(enrichmentService.isConfigured()).thenReturn(false);
+
+        IngredientImportResponse response = importService.importIngredients(List.of(request("Apple")));
+
+        IngredientImportResponse.RowResult apple = response.getRows().get(0);
+        assertThat(apple.getStatus()).isEqualTo(RowStatus.CREATED);
+        assertThat(apple.getNutritionStatus()).isEqualTo(Fruit.NutritionStatus.NONE);
+        assertThat(apple.getMessage()).contains("USDA API key not configured");
+        verify(enrichmentService).requestEnrichment(List.of());
+    }
+
+    @Test
+    void emptyImportIsRejectedBeforeTouchingTheDatabase() {
+        assertThatThrownBy(() -> importService.importIngredients(List.of()))
+                .hasMessage("Import file is empty");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private int[] insertBatch(BatchPreparedStatementSetter setter, KeyHolder keyHolder) throws Exception {
+        batchCalls++;
+        List<String> names = new ArrayList<>();
+        List<String> statuses = new ArrayList<>();
+        for (int i = 0; i < setter.getBatchSize(); i++) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(invocation -> {
+                int index = invocation.getArgument(0);
+                if (index == 1) {
+                    names.add(invocation.getArgument(1));
+                } else if (index == 18) {
+                    statuses.add(invocation.getArgument(1));
+                }
+                return null;
+            }).when(ps).setString(anyInt(), anyString());
+            setter.setValues(ps, i);
+        }
+        if (names.stream().anyMatch(storedNames::contains)) {
+            throw new DuplicateKeyException("Duplicate entry for key 'ingredients.name'");
+        }
+        storedNames.addAll(names);
+        storedStatuses.addAll(statuses);
+        Collection<Map<String, Object>> keys = keyHolder.getKeyList();
+        names.forEach(name -> keys.add(Map.of("GENERATED_KEY", nextId.incrementAndGet())));
+        return new int[names.size()];
+    }
+
+    private static IngredientAddRequest request(String name) {
+        IngredientAddRequest request = new IngredientAddRequest();
+        request.setName(name);
+        return request;
+    }
+}
@@ -0,0 +1,175 @@
+package project.mr_smoothy.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import project.mr_smoothy.dto.request.SmoothyOptimizeRequest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * SmoothyOptimizer branch-and-bound over a small in-memory problem (100 ml cup, per-gram densities)
+ */
+class SmoothyOptimizerTests {
+
+    private static final int VOLUME_ML = 100;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void cheapestValidCombinationIsFound() {
+        List<SmoothyOptimizer.Item> items = List.of(
+                item(1, 100, 0.5, 0.01),
+                item(2, 150, 0.6, 0.05),
+                item(3, 200, 0.4, 0.10),
+                item(4, 500, 1.0, 0.20));
+        // protein at least 6 g per cup: A and B alone fall short, C alone is enough
+        SmoothyOptimizer.Targets targets = new SmoothyOptimizer.Targets(Double.NaN, Double.NaN, 6, Double.NaN);
+
+        List<SmoothyOptimizer.Found> results = search(items, new int[4][4], targets, 5);
+
+        assertThat(results).isNotEmpty();
+        SmoothyOptimizer.Found cheapest = results.get(0);
+        assertThat(cheapest.items()).containsExactly(2);
+        assertThat(cheapest.quantities()).containsExactly(1);
+        assertThat(cheapest.priceCents()).isEqualTo(200).isEqualTo(bruteForceCheapest(items, new int[4][4], targets));
+        assertThat(results).extracting(SmoothyOptimizer.Found::priceCents).isSorted();
+        results.forEach(found -> assertThat(proteinPerCup(items, found)).isGreaterThanOrEqualTo(6 - 1e-9));
+    }
+
+    @Test
+    void avoidedPairsNeverAppearTogether() {
+        List<SmoothyOptimizer.Item> items = List.of(
+                item(1, 100, 0.2, 0.10),
+                item(2, 120, 0.9, 0.00),
+                item(3, 300, 0.5, 0.05));
+        // 40..60 kcal and 4 g protein per cup: A + B (220) is the cheapest mix, C alone (300) the next
+        SmoothyOptimizer.Targets targets = new SmoothyOptimizer.Targets(40, 60, 4, Double.NaN);
+
+        int[][] compatible = new int[3][3];
+        assertThat(search(items, compatible, targets, 10).get(0).items()).containsExactly(0, 1);
+
+        int[][] avoidAB = new int[3][3];
+        avoidAB[0][1] = -1;
+        avoidAB[1][0] = -1;
+        List<SmoothyOptimizer.Found> results = search(items, avoidAB, targets, 10);
+
+        assertThat(results).isNotEmpty();
+        assertThat(results).noneMatch(found -> contains(found, 0) && contains(found, 1));
+        assertThat(results.get(0).items()).containsExactly(2);
+        assertThat(results.get(0).priceCents()).isEqualTo(300).isEqualTo(bruteForceCheapest(items, avoidAB, targets));
+    }
+
+    @Test
+    void minCalorieAboveMaxCalorieIsRejectedBeforeSearching() {
+        CatalogCache catalogCache = mock(CatalogCache.class);
+        SmoothyOptimizer optimizer = new SmoothyOptimizer(catalogCache, mock(NutrientMatrix.class),
+                mock(LocalFlavorAnalyzer.class), 1, 1, 1000, 4, 3, 10);
+        try {
+            SmoothyOptimizeRequest request = new SmoothyOptimizeRequest();
+            request.setMinCalorie(300.0);
+            request.setMaxCalorie(200.0);
+
+            assertThatThrownBy(() -> optimizer.optimizeAsync(request))
+                    .hasMessage("minCalorie must not be greater than maxCalorie");
+            verifyNoInteractions(catalogCache);
+        } finally {
+            optimizer.shutdown();
+        }
+    }
+
+    private List<SmoothyOptimizer.Found> search(List<SmoothyOptimizer.Item> items, int[][] pairScores,
+                                                SmoothyOptimizer.Targets targets, int limit) {
+        SmoothyOptimizer.Problem problem = new SmoothyOptimizer.Problem(items, pairScores, 0, 3, 2, VOLUME_ML, targets);
+        SmoothyOptimizer.Search search = new SmoothyOptimizer.Search(problem, limit,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+        pool.invoke(search.root());
+        assertThat(search.timedOut()).isFalse();
+        return search.results();
+    }
+
+    /**
+     * Cheapest price over every mix of up to 3 ingredients, 1..2 units each, with no avoided pair and all targets met
+     */
+    private static long bruteForceCheapest(List<SmoothyOptimizer.Item> items, int[][] pairScores,
+                                           SmoothyOptimizer.Targets targets) {
+        int n = items.size();
+        long best = Long.MAX_VALUE;
+        int combinations = (int) Math.pow(3, n);
+        for (int code = 1; code < combinations; code++) {
+            int[] quantities = new int[n];
+            int count = 0;
+            for (int i = 0, c = code; i < n; i++, c /= 3) {
+                quantities[i] = c % 3;
+                count += quantities[i] > 0 ? 1 : 0;
+            }
+            if (count > 3 || clashes(quantities, pairScores)) {
+                continue;
+            }
+            int units = Arrays.stream(quantities).sum();
+            double calorie = 0;
+            double protein = 0;
+            double fiber = 0;
+            long price = 0;
+            for (int i = 0; i < n; i++) {
+                calorie += items.get(i).caloriePerGram() * quantities[i];
+                protein += items.get(i).proteinPerGram() * quantities[i];
+                fiber += items.get(i).fiberPerGram() * quantities[i];
+                price += items.get(i).priceCents() * quantities[i];
+            }
+            double perGram = (double) VOLUME_ML / units;
+            if (meets(calorie * perGram, targets.minCalorie(), targets.maxCalorie())
+                    && meets(protein * perGram, targets.minProtein(), Double.NaN)
+                    && meets(fiber * perGram, targets.minFiber(), Double.NaN)) {
+                best = Math.min(best, price);
+            }
+        }
+        return best;
+    }
+
+    private static boolean clashes(int[] quantities, int[][] pairScores) {
+        for (int a = 0; a < quantities.length; a++) {
+            for (int b = a + 1; b < quantities.length; b++) {
+                if (quantities[a] > 0 && quantities[b] > 0 && pairScores[a][b] < 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean meets(double value, double min, double max) {
+        return (Double.isNaN(min) || value >= min - 1e-9) && (Double.isNaN(max) || value <= max + 1e-9);
+    }
+
+    private static double proteinPerCup(List<SmoothyOptimizer.Item> items, SmoothyOptimizer.Found found) {
+        double protein = 0;
+        int units = 0;
+        for (int k = 0; k < found.items().length; k++) {
+            protein += items.get(found.items()[k]).proteinPerGram() * found.quantities()[k];
+            units += found.quantities()[k];
+        }
+        return protein * VOLUME_ML / units;
+    }
+
+    private static boolean contains(SmoothyOptimizer.Found found, int index) {
+        return Arrays.stream(found.items()).anyMatch(i -> i == index);
+    }
+
+    private static SmoothyOptimizer.Item item(long id, long priceCents, double caloriePerGram, double proteinPerGram) {
+        return new SmoothyOptimizer.Item(id, "item-" + id, (int) id - 1, false, priceCents,
+                caloriePerGram, proteinPerGram, 0.01);
+    }
+}
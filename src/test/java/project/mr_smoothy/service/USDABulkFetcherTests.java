@@ -0,0 +1,170 @@
+package project.mr_smoothy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import project.mr_smoothy.config.HttpClientConfig;
+import project.mr_smoothy.entity.Fruit;
+import project.mr_smoothy.repository.LearnedTranslationRepository;
+import project.mr_smoothy.repository.UsdaCacheRepository;
+import project.mr_smoothy.util.UpstreamGuard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * USDABulkFetcher against a local stub of the USDA FoodData Central API (JDK HttpServer)
+ */
+class USDABulkFetcherTests {
+
+    private static final Map<String, Integer> FDC_IDS = Map.of(
+            "banana", 1001,
+            "mango", 1002,
+            "strawberry", 1003,
+            "kiwi", 1004,
+            "lemon", 1005);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger activeSearches = new AtomicInteger();
+    private final AtomicInteger maxActiveSearches = new AtomicInteger();
+    private final AtomicInteger searchRequests = new AtomicInteger();
+    private final List<String> foodsRequests = new CopyOnWriteArrayList<>();
+
+    private USDABulkFetcher fetcher;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/fdc/v1/foods/search", this::handleSearch);
+        server.createContext("/fdc/v1/foods", this::handleFoods);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        FoodNameTranslator translator = new FoodNameTranslator(new OpenAIService(objectMapper, WebClient.create(), guard("openai")),
+                mock(LearnedTranslationRepository.class), objectMapper, "classpath:translations/thai-english.json");
+        WebClient usdaWebClient = WebClient.create("http://127.0.0.1:" + server.getAddress().getPort() + "/fdc/v1");
+        USDAService usdaService = new USDAService(usdaWebClient, guard("usda"), objectMapper, translator,
+                new USDAResponseCache(mock(UsdaCacheRepository.class), objectMapper, 100, 1));
+        ReflectionTestUtils.setField(usdaService, "usdaApiKey", "test-key");
+        fetcher = new USDABulkFetcher(usdaService, 2, false);
+    }
+
+    private static UpstreamGuard guard(String name) {
+        return new UpstreamGuard(name, 16, 1000, 20, 10, 50, 30_000, 3, HttpClientConfig::isUpstreamFailure);
+    }
+
+    @AfterEach
+    void stopStub() {
+        fetcher.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void resolvesAllNamesAndFetchesDetailsInOneFoodsCall() {
+        Map<String, USDABulkFetcher.Result> results = fetcher.fetch(List.of("Banana", "Mango", "Strawberry", "Kiwi", "Lemon"));
+
+        assertThat(results).hasSize(5);
+        assertThat(results.values()).allSatisfy(result -> {
+            assertThat(result.status()).isEqualTo(Fruit.NutritionStatus.DONE);
+            assertThat(result.details().get("fdcId").asInt()).isEqualTo(result.fdcId());
+        });
+        assertThat(results.get("Mango").fdcId()).isEqualTo(1002);
+
+        assertThat(foodsRequests).hasSize(1);
+        assertThat(foodsRequests.get(0).split(",")).containsExactlyInAnyOrder("1001", "1002", "1003", "1004", "1005");
+    }
+
+    @Test
+    void searchesRunConcurrentlyUpToTheParallelismCap() {
+        fetcher.fetch(List.of("Banana", "Mango", "Strawberry", "Kiwi", "Lemon"));
+
+        assertThat(maxActiveSearches.get()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsUnknownFoodsAsNotFound() {
+        Map<String, USDABulkFetcher.Result> results = fetcher.fetch(List.of("Banana", "Dragonfruit"));
+
+        assertThat(results.get("Banana").status()).isEqualTo(Fruit.NutritionStatus.DONE);
+        assertThat(results.get("Dragonfruit").status()).isEqualTo(Fruit.NutritionStatus.NOT_FOUND);
+        assertThat(results.get("Dragonfruit").details()).isNull();
+        assertThat(foodsRequests).containsExactly("1001");
+    }
+
+    @Test
+    void repeatedFetchesAreServedFromTheCache() {
+        fetcher.fetch(List.of("Banana", "Mango"));
+        Map<String, USDABulkFetcher.Result> again = fetcher.fetch(List.of("กล้วย", "Mango"));
+
+        assertThat(again.get("กล้วย").fdcId()).isEqualTo(1001);
+        assertThat(again.get("กล้วย").status()).isEqualTo(Fruit.NutritionStatus.DONE);
+        assertThat(searchRequests.get()).isEqualTo(2);
+        assertThat(foodsRequests).hasSize(1);
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        searchRequests.incrementAndGet();
+        int active = activeSearches.incrementAndGet();
+        maxActiveSearches.accumulateAndGet(active, Math::max);
+        try {
+            Thread.sleep(100);
+            Integer fdcId = FDC_IDS.get(query(exchange).get("query"));
+            respond(exchange, fdcId != null
+                    ? "{\"foods\":[{\"fdcId\":" + fdcId + "}]}"
+                    : "{\"foods\":[]}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeSearches.decrementAndGet();
+        }
+    }
+
+    private void handleFoods(HttpExchange exchange) throws IOException {
+        String ids = query(exchange).get("fdcIds");
+        foodsRequests.add(ids);
+        String body = List.of(ids.split(",")).stream()
+                .map(id -> "{\"fdcId\":" + id + ",\"foodNutrients\":[]}")
+                .collect(Collectors.joining(",", "[", "]"));
+        respond(exchange, body);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        String raw = exchange.getRequestURI().getRawQuery();
+        return List.of(raw.split("&")).stream()
+                .map(pair -> pair.split("=", 2))
+                .collect(Collectors.toMap(
+                        pair -> pair[0],
+                        pair -> URLDecoder.decode(pair.length > 1 ? pair[1] : "", StandardCharsets.UTF_8)));
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package project.mr_smoothy.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvParserTests {
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndNewlines() {
+        List<Map<String, String>> rows = CsvParser.parse(
+                "name,description\n" +
+                "Mango,\"Sweet, ripe\"\n" +
+                "Kiwi,\"The \"\"green\"\" one\"\n" +
+                "Lime,\"line one\nline two\"\n");
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).containsEntry("description", "Sweet, ripe");
+        assertThat(rows.get(1)).containsEntry("description", "The \"green\" one");
+        assertThat(rows.get(2)).containsEntry("name", "Lime").containsEntry("description", "line one\nline two");
+    }
+
+    @Test
+    void headerIsTrimmedLowercasedAndStripsBom() {
+        List<Map<String, String>> rows = CsvParser.parse("\uFEFFName, PricePerUnit ,Category\r\nBanana,12.5,ORGANIC_FRUITS\r\n");
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).keySet()).containsExactly("name", "priceperunit", "category");
+        assertThat(rows.get(0)).containsEntry("name", "Banana").containsEntry("priceperunit", "12.5");
+    }
+
+    @Test
+    void blankLinesAreSkippedAndMissingCellsAreEmpty() {
+        List<Map<String, String>> rows = CsvParser.parse("name,price,category\n\nApple, 10 \n\nPear\n");
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)).containsEntry("name", "Apple").containsEntry("price", "10").containsEntry("category", "");
+        assertThat(rows.get(1)).containsEntry("name", "Pear").containsEntry("price", "").containsEntry("category", "");
+    }
+
+    @Test
+    void lastRecordWithoutTrailingNewlineIsRead() {
+        assertThat(CsvParser.parse("name\nApple")).containsExactly(Map.of("name", "Apple"));
+        assertThat(CsvParser.parse("")).isEmpty();
+        assertThat(CsvParser.parse(null)).isEmpty();
+    }
+}
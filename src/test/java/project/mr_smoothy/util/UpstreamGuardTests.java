@@ -0,0 +1,133 @@
+package project.mr_smoothy.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * UpstreamGuard state machine driven by a fake clock
+ */
+class UpstreamGuardTests {
+
+    private static final long OPEN_MILLIS = 30_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private UpstreamGuard guard;
+
+    @BeforeEach
+    void createGuard() {
+        // window 4 ครั้ง, อย่างน้อย 4 ครั้ง, fail 50% เปิดวงจร, half-open ปล่อย probe 1 ครั้ง
+        guard = new UpstreamGuard("test", 4, 100, 4, 4, 50, OPEN_MILLIS, 1,
+                e -> e instanceof IllegalStateException, now::get);
+    }
+
+    @Test
+    void windowTripsOnceFailureRateReachesThreshold() {
+        succeed();
+        fail();
+        succeed();
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+
+        fail();
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.OPEN);
+        assertThat(guard.getTimesOpened()).isEqualTo(1);
+        assertThatThrownBy(this::succeed).isInstanceOf(UpstreamGuard.RejectedException.class);
+        assertThat(guard.getShortCircuited()).isEqualTo(1);
+    }
+
+    @Test
+    void failuresNotMatchingPredicateDoNotTrip() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new IllegalArgumentException("bad request");
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.getFailureRate()).isZero();
+    }
+
+    @Test
+    void openMovesToHalfOpenAfterWaitAndClosesOnProbeSuccess() {
+        trip();
+
+        now.addAndGet(OPEN_MILLIS - 1);
+        assertThat(guard.isCallPermitted()).isFalse();
+        assertThatThrownBy(this::succeed).isInstanceOf(UpstreamGuard.RejectedException.class);
+
+        now.addAndGet(1);
+        assertThat(guard.isCallPermitted()).isTrue();
+        succeed();
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+        assertThat(guard.getTimesClosed()).isEqualTo(1);
+        assertThat(guard.getFailureRate()).isZero();
+    }
+
+    @Test
+    void halfOpenRejectsCallsBeyondProbeLimit() {
+        trip();
+        now.addAndGet(OPEN_MILLIS);
+
+        String result = guard.call(() -> {
+            assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.HALF_OPEN);
+            assertThat(guard.isCallPermitted()).isFalse();
+            UpstreamGuard.RejectedException rejected = catchRejection(this::succeed);
+            assertThat(rejected.isBulkheadFull()).isFalse();
+            assertThat(rejected.getClosedGeneration()).isZero();
+            return "probe";
+        });
+
+        assertThat(result).isEqualTo("probe");
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenFailureReopensCircuit() {
+        trip();
+        now.addAndGet(OPEN_MILLIS);
+
+        fail();
+
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.OPEN);
+        assertThat(guard.getTimesOpened()).isEqualTo(2);
+        assertThat(guard.getTimesClosed()).isZero();
+        // วงจรเปิดใหม่ ต้องรอ openMillis เต็มอีกรอบ
+        now.addAndGet(OPEN_MILLIS - 1);
+        assertThatThrownBy(this::succeed).isInstanceOf(UpstreamGuard.RejectedException.class);
+        now.addAndGet(1);
+        succeed();
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.CLOSED);
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertThat(guard.getState()).isEqualTo(UpstreamGuard.State.OPEN);
+    }
+
+    private void succeed() {
+        guard.call(() -> "ok");
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw new IllegalStateException("upstream 503");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static UpstreamGuard.RejectedException catchRejection(Runnable call) {
+        try {
+            call.run();
+        } catch (UpstreamGuard.RejectedException e) {
+            return e;
+        }
+        throw new AssertionError("expected RejectedException");
+    }
+}